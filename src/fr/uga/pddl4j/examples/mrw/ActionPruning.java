@@ -0,0 +1,145 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Élagage des actions instanciées qui ne peuvent pas contribuer au but, avant
+ * la recherche.
+ * <p>
+ * Deux passes sont faites sur <code>problem.getActions()</code> :
+ * </p>
+ * <ul>
+ * <li>une accessibilité en avant depuis l'état initial dans la relaxation sans
+ * effets négatifs, qui retire les actions jamais applicables ;</li>
+ * <li>une analyse de pertinence en arrière depuis <code>problem.getGoal()</code>
+ * : une action est pertinente si elle produit un fluent positif pertinent ou
+ * supprime un fluent négatif pertinent, et ses préconditions deviennent alors
+ * pertinentes à leur tour.</li>
+ * </ul>
+ * Retirer une action non pertinente d'un plan laisse le plan valide, l'élagage
+ * ne fait donc perdre aucune solution.
+ */
+final class ActionPruning {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(ActionPruning.class.getName());
+
+    private ActionPruning() {
+    }
+
+    /**
+     * Retourne les actions du problème accessibles et pertinentes pour le but,
+     * dans l'ordre de <code>problem.getActions()</code>.
+     *
+     * @param problem le problème instancié.
+     * @return la liste des actions conservées.
+     */
+    static List<Action> prune(Problem problem) {
+        final List<Action> actions = problem.getActions();
+        final int nbFluents = problem.getFluents().size();
+        final List<List<ConditionalEffect>> effects = new ArrayList<>();
+        for (Action action : actions) {
+            effects.add(effects(action));
+        }
+
+        // Accessibilité en avant (relaxation sans effets négatifs)
+        BitVector reachable = new BitVector(problem.getInitialState().getPositiveFluents());
+        boolean[] applicable = new boolean[actions.size()];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int a = 0; a < actions.size(); a++) {
+                Action action = actions.get(a);
+                if (!applicable[a] && reachable.include(action.getPrecondition().getPositiveFluents())) {
+                    applicable[a] = true;
+                    changed = true;
+                }
+                if (applicable[a]) {
+                    for (ConditionalEffect effect : effects.get(a)) {
+                        BitVector adds = effect.getEffect().getPositiveFluents();
+                        if (reachable.include(effect.getCondition().getPositiveFluents())
+                                && !reachable.include(adds)) {
+                            reachable.or(adds);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+
+        // Pertinence en arrière depuis le but
+        BitVector relevantPositive = new BitVector(nbFluents);
+        BitVector relevantNegative = new BitVector(nbFluents);
+        relevantPositive.or(problem.getGoal().getPositiveFluents());
+        relevantNegative.or(problem.getGoal().getNegativeFluents());
+        boolean[] relevant = new boolean[actions.size()];
+        changed = true;
+        while (changed) {
+            changed = false;
+            for (int a = 0; a < actions.size(); a++) {
+                if (!applicable[a] || relevant[a]) {
+                    continue;
+                }
+                Action action = actions.get(a);
+                for (ConditionalEffect effect : effects.get(a)) {
+                    Effect e = effect.getEffect();
+                    if (e.getPositiveFluents().intersects(relevantPositive)
+                            || e.getNegativeFluents().intersects(relevantNegative)) {
+                        relevant[a] = true;
+                        break;
+                    }
+                }
+                if (relevant[a]) {
+                    changed = true;
+                    relevantPositive.or(action.getPrecondition().getPositiveFluents());
+                    relevantNegative.or(action.getPrecondition().getNegativeFluents());
+                    for (ConditionalEffect effect : effects.get(a)) {
+                        relevantPositive.or(effect.getCondition().getPositiveFluents());
+                        relevantNegative.or(effect.getCondition().getNegativeFluents());
+                    }
+                }
+            }
+        }
+
+        List<Action> pruned = new ArrayList<>();
+        for (int a = 0; a < actions.size(); a++) {
+            if (relevant[a]) {
+                pruned.add(actions.get(a));
+            }
+        }
+        LOGGER.info("* Relevance analysis pruned {} of {} actions ({} unreachable)\n",
+                actions.size() - pruned.size(), actions.size(), countFalse(applicable));
+        return pruned;
+    }
+
+    /**
+     * Retourne l'effet inconditionnel et les effets conditionnels d'une action.
+     */
+    private static List<ConditionalEffect> effects(Action action) {
+        List<ConditionalEffect> effects = new ArrayList<>(action.getConditionalEffects());
+        effects.add(new ConditionalEffect(action.getUnconditionalEffect()));
+        return effects;
+    }
+
+    private static int countFalse(boolean[] values) {
+        int count = 0;
+        for (boolean value : values) {
+            if (!value) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,254 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Statistiques de MDA et MHA agrégées par schéma d'action et conservées d'un
+ * problème à l'autre du même domaine.
+ * <p>
+ * Les compteurs sont indexés par le nom du schéma (<code>action.getName()</code>,
+ * par exemple <code>load-truck</code>) et non par action instanciée, ils sont
+ * donc valables pour toutes les instances du domaine. Pour chaque schéma sont
+ * comptées ses applications, celles qui font entrer la marche dans une impasse
+ * et celles qui atteignent le but. Le taux d'entrée dans une impasse distingue
+ * les schémas qui gaspillent une ressource (un déplacement qui consomme le
+ * dernier carburant) de ceux qui ne font que déplacer des objets ; un taux
+ * calculé sur toutes les actions des marches terminées dans une impasse serait
+ * proche de 1 pour tous les schémas dès que la plupart des marches échouent.
+ * Le fichier contient aussi
+ * le nombre total de marches, de marches terminées dans une impasse et la somme
+ * des facteurs de branchement, pour décider dès la première marche d'activer
+ * MDA ou MHA. Le format est celui de <code>java.util.Properties</code>.
+ * </p>
+ */
+final class ActionSchemaStats {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(ActionSchemaStats.class.getName());
+
+    /**
+     * Poids des a priori : un schéma qui fait entrer chaque marche dans une
+     * impasse commence avec ce nombre d'échecs.
+     */
+    private static final int PRIOR_WEIGHT = 100;
+
+    private final Properties values;
+
+    private ActionSchemaStats(Properties values) {
+        this.values = values;
+    }
+
+    /**
+     * Retourne le fichier de statistiques par défaut d'un domaine, à côté du
+     * fichier de domaine.
+     *
+     * @param domain le chemin du fichier de domaine.
+     * @return le fichier de statistiques.
+     */
+    static File defaultFile(String domain) {
+        File parent = new File(domain).getAbsoluteFile().getParentFile();
+        return new File(parent, "domain-stats.properties");
+    }
+
+    /**
+     * Charge les statistiques d'un domaine, ou des statistiques vides si le
+     * fichier n'existe pas encore.
+     *
+     * @param file le fichier de statistiques.
+     * @return les statistiques chargées.
+     */
+    static ActionSchemaStats load(File file) {
+        Properties values = new Properties();
+        if (file.exists()) {
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                values.load(reader);
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.error("* Cannot read the action schema statistics {}: {}\n", file, e.getMessage());
+                values.clear();
+            }
+        }
+        return new ActionSchemaStats(values);
+    }
+
+    /**
+     * Indique si des statistiques ont déjà été enregistrées.
+     *
+     * @return <code>true</code> si au moins une marche a été enregistrée.
+     */
+    boolean isEmpty() {
+        return this.get("walks") == 0;
+    }
+
+    /**
+     * Retourne le nombre d'échecs a priori d'une action instanciée, proportionnel
+     * à la part des applications de son schéma qui ont fait entrer une marche
+     * dans une impasse. Un schéma jamais appliqué reçoit le taux moyen du
+     * domaine, pour ne pas être préféré à tous les schémas déjà observés.
+     *
+     * @param action l'action instanciée.
+     * @return le nombre d'échecs a priori.
+     */
+    int failurePrior(Action action) {
+        long applications = this.get("schema." + action.getName() + ".applications");
+        long deadEnds = this.get("schema." + action.getName() + ".deadEnds");
+        if (applications == 0) {
+            applications = this.get("applications");
+            deadEnds = this.get("deadEndEntries");
+        }
+        if (applications == 0) {
+            return 0;
+        }
+        return (int) Math.round(PRIOR_WEIGHT * (double) deadEnds / applications);
+    }
+
+    /**
+     * Retourne le nombre de succès a priori d'une action instanciée : 1 si son
+     * schéma a déjà terminé une marche réussie.
+     *
+     * @param action l'action instanciée.
+     * @return le nombre de succès a priori.
+     */
+    int successPrior(Action action) {
+        return this.get("schema." + action.getName() + ".successes") > 0 ? 1 : 0;
+    }
+
+    /**
+     * Retourne le taux de marches terminées dans une impasse.
+     *
+     * @return le taux d'impasses, 0 si aucune marche n'est enregistrée.
+     */
+    double deadEndRate() {
+        long walks = this.get("walks");
+        return walks == 0 ? 0 : (double) this.get("deadEnds") / walks;
+    }
+
+    /**
+     * Retourne le facteur de branchement moyen par marche, calculé comme dans
+     * <code>MyPlannerImprove</code>.
+     *
+     * @return le facteur de branchement moyen.
+     */
+    long averageBranchingFactor() {
+        long walks = this.get("walks");
+        return walks == 0 ? 0 : this.get("branching") / walks;
+    }
+
+    /**
+     * Ajoute les compteurs d'un schéma observés pendant une recherche.
+     *
+     * @param schema       le nom du schéma.
+     * @param applications le nombre d'applications.
+     * @param deadEnds     le nombre d'applications qui ont fait entrer la marche
+     *                     dans une impasse.
+     * @param successes    le nombre d'applications qui ont atteint le but.
+     */
+    void addSchema(String schema, long applications, long deadEnds, long successes) {
+        this.add("schema." + schema + ".applications", applications);
+        this.add("schema." + schema + ".deadEnds", deadEnds);
+        this.add("schema." + schema + ".successes", successes);
+        this.add("applications", applications);
+        this.add("deadEndEntries", deadEnds);
+    }
+
+    /**
+     * Ajoute les totaux d'une recherche.
+     *
+     * @param walks     le nombre de marches.
+     * @param deadEnds  le nombre de marches terminées dans une impasse.
+     * @param branching la somme des facteurs de branchement.
+     */
+    void addWalks(long walks, long deadEnds, long branching) {
+        this.add("walks", walks);
+        this.add("deadEnds", deadEnds);
+        this.add("branching", branching);
+        this.add("problems", 1);
+    }
+
+    /**
+     * Fusionne ces statistiques avec celles du fichier puis l'écrit. La lecture,
+     * la fusion et l'écriture se font sous un verrou exclusif du fichier, pour
+     * ne pas perdre les recherches enregistrées en même temps par une autre
+     * exécution (le verrou vaut entre processus, pas entre threads d'une même
+     * JVM).
+     *
+     * @param file      le fichier de statistiques.
+     * @param increment les statistiques de la recherche qui vient de se terminer.
+     */
+    static void merge(File file, ActionSchemaStats increment) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Verrou libéré à la fermeture du canal
+            channel.lock();
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            while (channel.read(buffer) > 0) {
+                content.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            Properties values = new Properties();
+            try {
+                values.load(new StringReader(content.toString(StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException e) {
+                LOGGER.error("* Cannot read the action schema statistics {}: {}\n", file, e.getMessage());
+                values.clear();
+            }
+            ActionSchemaStats stats = new ActionSchemaStats(values);
+            for (String key : increment.values.stringPropertyNames()) {
+                stats.add(key, increment.get(key));
+            }
+            StringWriter writer = new StringWriter();
+            stats.values.store(writer, "Action schema statistics of MyPlannerImprove");
+            ByteBuffer bytes = ByteBuffer.wrap(writer.toString().getBytes(StandardCharsets.UTF_8));
+            channel.truncate(0);
+            channel.position(0);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            LOGGER.error("* Cannot write the action schema statistics {}: {}\n", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Crée des statistiques vides pour accumuler une recherche.
+     *
+     * @return des statistiques vides.
+     */
+    static ActionSchemaStats empty() {
+        return new ActionSchemaStats(new Properties());
+    }
+
+    private long get(String key) {
+        String value = this.values.getProperty(key);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void add(String key, long increment) {
+        this.values.setProperty(key, Long.toString(this.get(key) + increment));
+    }
+}
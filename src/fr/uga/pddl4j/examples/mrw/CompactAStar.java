@@ -0,0 +1,590 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Moteur A* (ou weighted A*) compact, sans objet par nœud.
+ * <p>
+ * Chaque nœud est un indice entier. Les états sont rangés bout à bout dans un
+ * seul tableau <code>long[]</code> (nbFluents bits par état), les valeurs g, h,
+ * le parent et l'action de chaque nœud dans des tableaux d'entiers. L'ensemble
+ * des états déjà générés est une table de hachage à adressage ouvert qui ne
+ * contient que des indices de nœuds, et la liste ouverte est un tas binaire
+ * d'entiers trié par f puis par h. Les entrées périmées du tas (nœud fermé ou
+ * dont le g a été amélioré depuis) sont ignorées au moment de leur sortie.
+ * </p> * <p>
+ * Avec des symétries d'objets (voir {@link Symmetry}), chaque état est rangé
+ * sous sa forme canonique : les états symétriques d'un état déjà généré sont
+ * des doublons. Le plan est alors reconstruit en suivant la permutation qui
+ * relie chaque état réel à l'état rangé.
+ * </p>
+ */
+final class CompactAStar {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(CompactAStar.class.getName());
+
+    /**
+     * Nombre initial de nœuds alloués.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    /**
+     * Nombre d'expansions entre deux vérifications du temps écoulé.
+     */
+    private static final int CLOCK_PERIOD = 1024;
+
+    private final Problem problem;
+    // Actions explorées et, pour chacune, son indice dans problem.getActions()
+    private final List<Action> actions;
+    private final int[] problemIndex;
+    private final StateHeuristic heuristic;
+    private final String heuristicName;
+    private final double weight;
+    private final int words;
+
+    // Actions compilées en listes de fluents
+    private final int[][] prePositive;
+    private final int[][] preNegative;
+    private final int[][][] effectCondPositive;
+    private final int[][][] effectCondNegative;
+    private final int[][][] effectAdd;
+    private final int[][][] effectDel;
+    private final int[] goalPositive;
+    private final int[] goalNegative;
+
+    // Nœuds
+    private long[] states;
+    private int[] parent;
+    private int[] action;
+    private int[] g;
+    private int[] h;
+    private BitSet closed;
+    private int nodeCount;
+
+    // Table de hachage des états (indice de nœud + 1, 0 pour une case vide)
+    private int[] table;
+    private int tableMask;
+
+    // Liste ouverte
+    private int[] heapNode;
+    private int[] heapF;
+    private int heapSize;
+
+    private long expandedNodes;
+
+    // Symétries d'objets, null pour une recherche sans réduction
+    private Symmetry symmetry;
+
+    // Flux de progression, désactivé par défaut
+    private Progress progress = Progress.open(null, 1000, "HSP");
+
+    // État pddl4j réutilisé pour les appels à l'heuristique
+    private final State scratch;
+
+    /**
+     * Crée le moteur pour un problème instancié.
+     *
+     * @param problem   le problème instancié.
+     * @param heuristic le nom de l'heuristique.
+     * @param weight    le poids de l'heuristique (1 pour A*).
+     */
+    CompactAStar(Problem problem, StateHeuristic.Name heuristic, double weight) {
+        this(problem, problem.getActions(), heuristic, weight);
+    }
+
+    /**
+     * Crée le moteur pour un problème instancié en n'explorant qu'une partie de
+     * ses actions, par exemple celles conservées par <code>ActionPruning</code>.
+     *
+     * @param problem   le problème instancié.
+     * @param actions   les actions explorées, parmi celles du problème.
+     * @param heuristic le nom de l'heuristique.
+     * @param weight    le poids de l'heuristique (1 pour A*).
+     */
+    CompactAStar(Problem problem, List<Action> actions, StateHeuristic.Name heuristic, double weight) {
+        this.problem = problem;
+        this.actions = actions;
+        this.problemIndex = new int[actions.size()];
+        Map<Action, Integer> indices = new IdentityHashMap<>();
+        for (int a = 0; a < problem.getActions().size(); a++) {
+            indices.put(problem.getActions().get(a), a);
+        }
+        for (int a = 0; a < actions.size(); a++) {
+            this.problemIndex[a] = indices.get(actions.get(a));
+        }
+        this.heuristic = StateHeuristic.getInstance(heuristic, problem);
+        this.heuristicName = heuristic.name();
+        this.weight = weight;
+        this.words = Math.max(1, (problem.getFluents().size() + 63) >>> 6);
+        final int nbActions = actions.size();
+        this.prePositive = new int[nbActions][];
+        this.preNegative = new int[nbActions][];
+        this.effectCondPositive = new int[nbActions][][];
+        this.effectCondNegative = new int[nbActions][][];
+        this.effectAdd = new int[nbActions][][];
+        this.effectDel = new int[nbActions][][];
+        for (int a = 0; a < nbActions; a++) {
+            Action op = actions.get(a);
+            this.prePositive[a] = toArray(op.getPrecondition().getPositiveFluents());
+            this.preNegative[a] = toArray(op.getPrecondition().getNegativeFluents());
+            List<ConditionalEffect> effects = new ArrayList<>(op.getConditionalEffects());
+            effects.add(new ConditionalEffect(op.getUnconditionalEffect()));
+            int nbEffects = effects.size();
+            this.effectCondPositive[a] = new int[nbEffects][];
+            this.effectCondNegative[a] = new int[nbEffects][];
+            this.effectAdd[a] = new int[nbEffects][];
+            this.effectDel[a] = new int[nbEffects][];
+            for (int e = 0; e < nbEffects; e++) {
+                ConditionalEffect effect = effects.get(e);
+                this.effectCondPositive[a][e] = toArray(effect.getCondition().getPositiveFluents());
+                this.effectCondNegative[a][e] = toArray(effect.getCondition().getNegativeFluents());
+                this.effectAdd[a][e] = toArray(effect.getEffect().getPositiveFluents());
+                this.effectDel[a][e] = toArray(effect.getEffect().getNegativeFluents());
+            }
+        }
+        this.goalPositive = toArray(problem.getGoal().getPositiveFluents());
+        this.goalNegative = toArray(problem.getGoal().getNegativeFluents());
+        this.scratch = new State();
+    }
+
+    /**
+     * Cherche un plan depuis l'état initial.
+     *
+     * @param timeout le temps maximal de recherche en secondes.
+     * @return le plan trouvé, ou null si la recherche échoue.
+     */
+    Plan search(int timeout) {
+        final long deadline = System.currentTimeMillis() + timeout * 1000L;
+        this.allocate(INITIAL_CAPACITY);
+        final Condition goal = this.problem.getGoal();
+        final long[] child = new long[this.words];
+
+        long[] init = new State(this.problem.getInitialState()).toLongArray();
+        System.arraycopy(init, 0, child, 0, Math.min(init.length, this.words));
+        if (this.symmetry != null) {
+            this.symmetry.canonicalize(child);
+        }
+        int h0 = this.estimate(child, goal);
+        if (h0 == Integer.MAX_VALUE) {
+            return null;
+        }
+        int root = this.addNode(child, -1, -1, 0, h0);
+        int bestH = h0;
+        this.push(root);
+
+        try {
+            while (this.heapSize > 0) {
+                int f = this.heapF[0];
+                int node = this.pop();
+                if (this.closed.get(node) || f != this.f(node)) {
+                    continue;
+                }
+                if (this.isGoal(node)) {
+                    LOGGER.info("* Compact A* expanded {} nodes, {} generated\n", this.expandedNodes, this.nodeCount);
+                    return this.extractPlan(node);
+                }
+                this.closed.set(node);
+                this.expandedNodes++;
+                bestH = Math.min(bestH, this.h[node]);
+                if ((this.expandedNodes % CLOCK_PERIOD) == 0) {
+                    if (System.currentTimeMillis() > deadline) {
+                        LOGGER.info("* Compact A* timeout after {} expansions\n", this.expandedNodes);
+                        return null;
+                    }
+                    if (this.progress.isDue()) {
+                        this.progress.progress("expanded", this.expandedNodes, "generated", this.nodeCount,
+                                "open", this.heapSize, "f", f, "best_h", bestH,
+                                "expanded_per_s", this.expandedNodes * 1000.0
+                                        / Math.max(1, this.progress.elapsedMillis()));
+                    }
+                }
+                int base = node * this.words;
+                for (int a = 0; a < this.prePositive.length; a++) {
+                    if (!this.isApplicable(a, base)) {
+                        continue;
+                    }
+                    this.successor(a, base, child);
+                    if (this.symmetry != null) {
+                        this.symmetry.canonicalize(child);
+                    }
+                    int childG = this.g[node] + 1;
+                    int known = this.lookup(child);
+                    if (known >= 0) {
+                        if (childG < this.g[known]) {
+                            // Meilleur chemin vers un état connu : mise à jour et réouverture
+                            this.g[known] = childG;
+                            this.parent[known] = node;
+                            this.action[known] = a;
+                            this.closed.clear(known);
+                            this.push(known);
+                        }
+                        continue;
+                    }
+                    int childH = this.estimate(child, goal);
+                    if (childH == Integer.MAX_VALUE) {
+                        continue;
+                    }
+                    this.push(this.addNode(child, node, a, childG, childH));
+                }
+            }
+        } catch (OutOfMemoryError e) {
+            int generated = this.nodeCount;
+            this.release();
+            LOGGER.info("* Compact A* ran out of memory after {} generated nodes\n", generated);
+            return null;
+        }
+        LOGGER.info("* Compact A* exhausted the search space ({} nodes)\n", this.nodeCount);
+        return null;
+    }
+
+    /**
+     * Définit le flux qui reçoit les événements de progression de la recherche.
+     *
+     * @param progress le flux de progression.
+     */
+    void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Active la détection des doublons à une symétrie près.
+     *
+     * @param symmetry les symétries d'objets du problème.
+     */
+    void setSymmetry(Symmetry symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Retourne le nombre de nœuds développés.
+     *
+     * @return le nombre de nœuds développés.
+     */
+    long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Retourne le nombre de nœuds générés.
+     *
+     * @return le nombre de nœuds générés.
+     */
+    int getGeneratedNodes() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Retourne la taille de la liste ouverte (entrées périmées comprises).
+     *
+     * @return la taille de la liste ouverte.
+     */
+    int getOpenSize() {
+        return this.heapSize;
+    }
+
+    /**
+     * Retourne la mémoire occupée par les structures de la recherche, en
+     * octets.
+     *
+     * @return la mémoire utilisée par la recherche.
+     */
+    long getMemoryUsed() {
+        if (this.states == null) {
+            return 0;
+        }
+        return 8L * this.states.length + 16L * this.parent.length + this.parent.length / 8
+                + 4L * this.table.length + 8L * this.heapNode.length;
+    }
+
+    private void allocate(int capacity) {
+        this.states = new long[capacity * this.words];
+        this.parent = new int[capacity];
+        this.action = new int[capacity];
+        this.g = new int[capacity];
+        this.h = new int[capacity];
+        this.closed = new BitSet(capacity);
+        this.nodeCount = 0;
+        this.table = new int[capacity * 2];
+        this.tableMask = this.table.length - 1;
+        this.heapNode = new int[capacity];
+        this.heapF = new int[capacity];
+        this.heapSize = 0;
+        this.expandedNodes = 0;
+    }
+
+    private void release() {
+        this.states = null;
+        this.table = null;
+        this.heapNode = null;
+        this.heapF = null;
+    }
+
+    private int f(int node) {
+        return this.g[node] + (int) Math.ceil(this.weight * this.h[node]);
+    }
+
+    private int estimate(long[] packed, Condition goal) {
+        this.scratch.clear();
+        for (int w = 0; w < this.words; w++) {
+            long bits = packed[w];
+            while (bits != 0) {
+                this.scratch.set((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        PlannerEvents.HeuristicEvaluation event = new PlannerEvents.HeuristicEvaluation(this.heuristicName);
+        event.begin();
+        int value = this.heuristic.estimate(this.scratch, goal);
+        event.value = value;
+        event.commit();
+        return value;
+    }
+
+    private boolean get(int base, int fluent) {
+        return (this.states[base + (fluent >>> 6)] & (1L << fluent)) != 0;
+    }
+
+    private boolean isApplicable(int a, int base) {
+        for (int f : this.prePositive[a]) {
+            if (!this.get(base, f)) {
+                return false;
+            }
+        }
+        for (int f : this.preNegative[a]) {
+            if (this.get(base, f)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isGoal(int node) {
+        int base = node * this.words;
+        for (int f : this.goalPositive) {
+            if (!this.get(base, f)) {
+                return false;
+            }
+        }
+        for (int f : this.goalNegative) {
+            if (this.get(base, f)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calcule l'état successeur dans child. Les conditions des effets sont
+     * évaluées sur l'état parent, les retraits avant les ajouts comme dans
+     * <code>State.apply</code>.
+     */
+    private void successor(int a, int base, long[] child) {
+        System.arraycopy(this.states, base, child, 0, this.words);
+        for (int e = 0; e < this.effectAdd[a].length; e++) {
+            boolean triggered = true;
+            for (int f : this.effectCondPositive[a][e]) {
+                if (!this.get(base, f)) {
+                    triggered = false;
+                    break;
+                }
+            }
+            for (int i = 0; triggered && i < this.effectCondNegative[a][e].length; i++) {
+                triggered = !this.get(base, this.effectCondNegative[a][e][i]);
+            }
+            if (triggered) {
+                for (int f : this.effectDel[a][e]) {
+                    child[f >>> 6] &= ~(1L << f);
+                }
+                for (int f : this.effectAdd[a][e]) {
+                    child[f >>> 6] |= 1L << f;
+                }
+            }
+        }
+    }
+
+    private int hash(long[] packed, int offset) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int w = 0; w < this.words; w++) {
+            hash = (hash ^ packed[offset + w]) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private boolean equals(long[] packed, int node) {
+        int base = node * this.words;
+        for (int w = 0; w < this.words; w++) {
+            if (this.states[base + w] != packed[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int lookup(long[] packed) {
+        int slot = this.hash(packed, 0) & this.tableMask;
+        while (this.table[slot] != 0) {
+            int node = this.table[slot] - 1;
+            if (this.equals(packed, node)) {
+                return node;
+            }
+            slot = (slot + 1) & this.tableMask;
+        }
+        return -1;
+    }
+
+    private int addNode(long[] packed, int parentNode, int a, int nodeG, int nodeH) {
+        if (this.nodeCount == this.parent.length) {
+            this.grow();
+        }
+        int node = this.nodeCount++;
+        System.arraycopy(packed, 0, this.states, node * this.words, this.words);
+        this.parent[node] = parentNode;
+        this.action[node] = a;
+        this.g[node] = nodeG;
+        this.h[node] = nodeH;
+        this.insert(node);
+        return node;
+    }
+
+    private void insert(int node) {
+        int slot = this.hash(this.states, node * this.words) & this.tableMask;
+        while (this.table[slot] != 0) {
+            slot = (slot + 1) & this.tableMask;
+        }
+        this.table[slot] = node + 1;
+    }
+
+    private void grow() {
+        int capacity = this.parent.length * 2;
+        if (capacity < 0 || (long) capacity * this.words > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Compact A* node limit reached");
+        }
+        this.states = Arrays.copyOf(this.states, capacity * this.words);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.action = Arrays.copyOf(this.action, capacity);
+        this.g = Arrays.copyOf(this.g, capacity);
+        this.h = Arrays.copyOf(this.h, capacity);
+        // La table reste au plus à moitié pleine
+        this.table = new int[capacity * 2];
+        this.tableMask = this.table.length - 1;
+        for (int node = 0; node < this.nodeCount; node++) {
+            this.insert(node);
+        }
+    }
+
+    private boolean before(int i, int j) {
+        if (this.heapF[i] != this.heapF[j]) {
+            return this.heapF[i] < this.heapF[j];
+        }
+        return this.h[this.heapNode[i]] < this.h[this.heapNode[j]];
+    }
+
+    private void swap(int i, int j) {
+        int node = this.heapNode[i];
+        this.heapNode[i] = this.heapNode[j];
+        this.heapNode[j] = node;
+        int f = this.heapF[i];
+        this.heapF[i] = this.heapF[j];
+        this.heapF[j] = f;
+    }
+
+    private void push(int node) {
+        if (this.heapSize == this.heapNode.length) {
+            this.heapNode = Arrays.copyOf(this.heapNode, this.heapSize * 2);
+            this.heapF = Arrays.copyOf(this.heapF, this.heapSize * 2);
+        }
+        int i = this.heapSize++;
+        this.heapNode[i] = node;
+        this.heapF[i] = this.f(node);
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (!this.before(i, up)) {
+                break;
+            }
+            this.swap(i, up);
+            i = up;
+        }
+    }
+
+    private int pop() {
+        int node = this.heapNode[0];
+        this.heapSize--;
+        this.heapNode[0] = this.heapNode[this.heapSize];
+        this.heapF[0] = this.heapF[this.heapSize];
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= this.heapSize) {
+                break;
+            }
+            int best = left + 1 < this.heapSize && this.before(left + 1, left) ? left + 1 : left;
+            if (!this.before(best, i)) {
+                break;
+            }
+            this.swap(i, best);
+            i = best;
+        }
+        return node;
+    }
+
+    private Plan extractPlan(int node) {
+        List<Integer> reversed = new ArrayList<>();
+        for (int n = node; this.parent[n] >= 0; n = this.parent[n]) {
+            reversed.add(n);
+        }
+        Plan plan = new SequentialPlan();
+        if (this.symmetry == null) {
+            for (int i = 0; i < reversed.size(); i++) {
+                plan.add(i, this.actions.get(this.action[reversed.get(reversed.size() - 1 - i)]));
+            }
+            return plan;
+        }
+        // L'état réel est l'image de l'état rangé par une permutation d'objets :
+        // l'action réelle est l'image de l'action rangée, et la permutation est
+        // composée avec les échanges qui ont rendu le successeur canonique
+        long[] packed = new long[this.words];
+        long[] init = new State(this.problem.getInitialState()).toLongArray();
+        System.arraycopy(init, 0, packed, 0, Math.min(init.length, this.words));
+        int[] permutation = this.symmetry.identity();
+        this.symmetry.canonicalize(packed, permutation);
+        for (int i = 0; i < reversed.size(); i++) {
+            int n = reversed.get(reversed.size() - 1 - i);
+            // Les symétries portent sur les indices de problem.getActions()
+            int a = this.symmetry.image(this.problemIndex[this.action[n]], permutation);
+            if (a < 0) {
+                LOGGER.error("* Compact A* cannot map the plan back through the symmetries\n");
+                return null;
+            }
+            plan.add(i, this.problem.getActions().get(a));
+            this.successor(this.action[n], this.parent[n] * this.words, packed);
+            this.symmetry.canonicalize(packed, permutation);
+        }
+        return plan;
+    }
+
+    private static int[] toArray(BitVector vector) {
+        return vector.stream().toArray();
+    }
+}
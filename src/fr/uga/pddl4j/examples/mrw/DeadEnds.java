@@ -0,0 +1,315 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Détection précoce des impasses pendant les marches.
+ * <p>
+ * Les invariants du problème instancié sont d'abord synthétisés sous forme de
+ * mutex h^2 : les paires de fluents qui ne peuvent jamais être vraies ensemble
+ * dans un état accessible. Une action dont la précondition contient un mutex
+ * n'est jamais applicable et un but qui en contient un est inaccessible.
+ * Ensuite chaque état généré est testé : il est une impasse si le but n'est
+ * plus accessible depuis lui dans la relaxation sans effets négatifs, en
+ * n'utilisant que les actions compatibles avec les mutex.
+ * </p>
+ */
+final class DeadEnds {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(DeadEnds.class.getName());
+
+    /**
+     * Au-delà de ce nombre de fluents le calcul des mutex h^2 (quadratique en
+     * mémoire) est ignoré et seul le test relaxé est utilisé.
+     */
+    private static final int MAX_FLUENTS_FOR_MUTEX = 4000;
+
+    private final int nbFluents;
+    private final int[] goal;
+    private final int[][] preconditions;
+    private final int[][] additions;
+    private final int[][] consumers;
+    private final boolean unsolvable;
+    private final long mutexCount;
+
+    // Tampons réutilisés par isDeadEnd
+    private final boolean[] reached;
+    private final int[] missing;
+    private final int[] queue;
+    private final boolean[] isGoal;
+    private int goalRemaining;
+
+    private DeadEnds(int nbFluents, int[] goal, int[][] preconditions, int[][] additions, boolean unsolvable,
+            long mutexCount) {
+        this.nbFluents = nbFluents;
+        this.goal = goal;
+        this.preconditions = preconditions;
+        this.additions = additions;
+        this.unsolvable = unsolvable;
+        this.mutexCount = mutexCount;
+        int[] consumerCount = new int[nbFluents];
+        for (int[] pre : preconditions) {
+            for (int f : pre) {
+                consumerCount[f]++;
+            }
+        }
+        this.consumers = new int[nbFluents][];
+        for (int f = 0; f < nbFluents; f++) {
+            this.consumers[f] = new int[consumerCount[f]];
+            consumerCount[f] = 0;
+        }
+        for (int a = 0; a < preconditions.length; a++) {
+            for (int f : preconditions[a]) {
+                this.consumers[f][consumerCount[f]++] = a;
+            }
+        }
+        this.reached = new boolean[nbFluents];
+        this.missing = new int[preconditions.length];
+        this.queue = new int[nbFluents];
+        this.isGoal = new boolean[nbFluents];
+        for (int f : goal) {
+            this.isGoal[f] = true;
+        }
+    }
+
+    /**
+     * Synthétise les invariants du problème et prépare le test d'impasse.
+     *
+     * @param problem le problème instancié.
+     * @param actions les actions utilisées par les marches.
+     * @return le détecteur d'impasses.
+     */
+    static DeadEnds analyse(Problem problem, List<Action> actions) {
+        final int nbFluents = problem.getFluents().size();
+        int[] goal = problem.getGoal().getPositiveFluents().stream().toArray();
+        long[] mutex = null;
+        if (nbFluents <= MAX_FLUENTS_FOR_MUTEX) {
+            mutex = h2Mutexes(problem, actions, nbFluents);
+        } else {
+            LOGGER.info("* Too many fluents ({}) for h^2 mutexes, using the relaxed test only\n", nbFluents);
+        }
+
+        long mutexCount = 0;
+        boolean unsolvable = false;
+        List<int[]> preconditions = new ArrayList<>();
+        List<int[]> additions = new ArrayList<>();
+        if (mutex != null) {
+            for (int p = 0; p < nbFluents; p++) {
+                for (int q = p + 1; q < nbFluents; q++) {
+                    if (isMutex(mutex, nbFluents, p, q)) {
+                        mutexCount++;
+                    }
+                }
+            }
+            unsolvable = containsMutex(mutex, nbFluents, goal);
+        }
+        for (Action action : actions) {
+            int[] pre = action.getPrecondition().getPositiveFluents().stream().toArray();
+            if (mutex == null || !containsMutex(mutex, nbFluents, pre)) {
+                preconditions.add(pre);
+                additions.add(action.getUnconditionalEffect().getPositiveFluents().stream().toArray());
+            }
+        }
+        LOGGER.info("* Invariant synthesis: {} h^2 mutex pairs, {} of {} actions can never be applied\n",
+                mutexCount, actions.size() - preconditions.size(), actions.size());
+        return new DeadEnds(nbFluents, goal, preconditions.toArray(new int[0][]), additions.toArray(new int[0][]),
+                unsolvable, mutexCount);
+    }
+
+    /**
+     * Calcule les paires de fluents accessibles au sens de h^2 et retourne la
+     * matrice (nbFluents x nbFluents bits) des paires mutex.
+     */
+    private static long[] h2Mutexes(Problem problem, List<Action> actions, int nbFluents) {
+        long[] pairs = new long[(int) (((long) nbFluents * nbFluents + 63) / 64)];
+        BitVector init = problem.getInitialState().getPositiveFluents();
+        for (int p = init.nextSetBit(0); p >= 0; p = init.nextSetBit(p + 1)) {
+            for (int q = init.nextSetBit(0); q >= 0; q = init.nextSetBit(q + 1)) {
+                set(pairs, nbFluents, p, q);
+            }
+        }
+        int[][] pre = new int[actions.size()][];
+        int[][] add = new int[actions.size()][];
+        BitVector[] touched = new BitVector[actions.size()];
+        for (int a = 0; a < actions.size(); a++) {
+            Action action = actions.get(a);
+            pre[a] = action.getPrecondition().getPositiveFluents().stream().toArray();
+            add[a] = action.getUnconditionalEffect().getPositiveFluents().stream().toArray();
+            touched[a] = new BitVector(action.getUnconditionalEffect().getPositiveFluents());
+            touched[a].or(action.getUnconditionalEffect().getNegativeFluents());
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int a = 0; a < actions.size(); a++) {
+                if (!allPairs(pairs, nbFluents, pre[a])) {
+                    continue;
+                }
+                for (int p : add[a]) {
+                    for (int q : add[a]) {
+                        changed |= set(pairs, nbFluents, p, q);
+                    }
+                    // Un fluent r non touché par l'action reste vrai avec p s'il était
+                    // accessible avec toute la précondition
+                    for (int r = 0; r < nbFluents; r++) {
+                        if (!isReachable(pairs, nbFluents, r, r) || touched[a].get(r)
+                                || isReachable(pairs, nbFluents, p, r)) {
+                            continue;
+                        }
+                        boolean compatible = true;
+                        for (int x : pre[a]) {
+                            if (!isReachable(pairs, nbFluents, r, x)) {
+                                compatible = false;
+                                break;
+                            }
+                        }
+                        if (compatible) {
+                            changed |= set(pairs, nbFluents, p, r);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Les paires mutex sont les paires de fluents accessibles jamais vraies ensemble
+        long[] mutex = new long[pairs.length];
+        for (int p = 0; p < nbFluents; p++) {
+            if (!isReachable(pairs, nbFluents, p, p)) {
+                // Un fluent inaccessible est mutex avec lui-même
+                long index = (long) p * nbFluents + p;
+                mutex[(int) (index >>> 6)] |= 1L << (index & 63);
+                continue;
+            }
+            for (int q = 0; q < nbFluents; q++) {
+                if (isReachable(pairs, nbFluents, q, q) && !isReachable(pairs, nbFluents, p, q)) {
+                    long index = (long) p * nbFluents + q;
+                    mutex[(int) (index >>> 6)] |= 1L << (index & 63);
+                }
+            }
+        }
+        return mutex;
+    }
+
+    private static boolean allPairs(long[] pairs, int n, int[] fluents) {
+        for (int i = 0; i < fluents.length; i++) {
+            for (int j = i; j < fluents.length; j++) {
+                if (!isReachable(pairs, n, fluents[i], fluents[j])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsMutex(long[] mutex, int n, int[] fluents) {
+        for (int i = 0; i < fluents.length; i++) {
+            for (int j = i; j < fluents.length; j++) {
+                if (isMutex(mutex, n, fluents[i], fluents[j])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReachable(long[] pairs, int n, int p, int q) {
+        long index = (long) p * n + q;
+        return (pairs[(int) (index >>> 6)] & (1L << (index & 63))) != 0;
+    }
+
+    private static boolean isMutex(long[] mutex, int n, int p, int q) {
+        return isReachable(mutex, n, p, q);
+    }
+
+    private static boolean set(long[] pairs, int n, int p, int q) {
+        if (isReachable(pairs, n, p, q)) {
+            return false;
+        }
+        long index = (long) p * n + q;
+        pairs[(int) (index >>> 6)] |= 1L << (index & 63);
+        index = (long) q * n + p;
+        pairs[(int) (index >>> 6)] |= 1L << (index & 63);
+        return true;
+    }
+
+    /**
+     * Retourne le nombre de paires mutex trouvées.
+     *
+     * @return le nombre de paires mutex.
+     */
+    long getMutexCount() {
+        return this.mutexCount;
+    }
+
+    /**
+     * Teste si le but n'est plus accessible depuis un état.
+     *
+     * @param state l'état à tester.
+     * @return <code>true</code> si l'état est une impasse.
+     */
+    boolean isDeadEnd(State state) {
+        if (this.unsolvable) {
+            return true;
+        }
+        this.goalRemaining = 0;
+        for (int f = 0; f < this.nbFluents; f++) {
+            this.reached[f] = state.get(f);
+        }
+        for (int f : this.goal) {
+            if (!this.reached[f]) {
+                this.goalRemaining++;
+            }
+        }
+        if (this.goalRemaining == 0) {
+            return false;
+        }
+        int head = 0;
+        int tail = 0;
+        for (int a = 0; a < this.preconditions.length; a++) {
+            this.missing[a] = 0;
+            for (int f : this.preconditions[a]) {
+                if (!this.reached[f]) {
+                    this.missing[a]++;
+                }
+            }
+            if (this.missing[a] == 0) {
+                tail = this.fire(a, tail);
+            }
+        }
+        while (head < tail && this.goalRemaining > 0) {
+            int f = this.queue[head++];
+            for (int a : this.consumers[f]) {
+                if (--this.missing[a] == 0) {
+                    tail = this.fire(a, tail);
+                }
+            }
+        }
+        return this.goalRemaining > 0;
+    }
+
+    private int fire(int action, int tail) {
+        for (int f : this.additions[action]) {
+            if (!this.reached[f]) {
+                this.reached[f] = true;
+                this.queue[tail++] = f;
+                if (this.isGoal[f]) {
+                    this.goalRemaining--;
+                }
+            }
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,545 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.problem.DefaultProblem;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+/**
+ * Marches aléatoires réparties sur plusieurs JVM d'une même machine.
+ * <p>
+ * Le coordinateur ouvre un socket local et lance les workers, chacun dans son
+ * propre processus. Chaque worker exécute la boucle de marches de
+ * <code>MyPlanner</code> (<code>RandomWalk</code>) depuis le point de saut
+ * courant et envoie ses meilleurs états finaux au coordinateur. Le
+ * coordinateur diffuse chaque amélioration comme nouveau point de saut, repart
+ * de l'état initial après une longue stagnation et envoie l'ordre d'arrêt dès
+ * qu'un plan est trouvé.
+ * </p>
+ * <p>
+ * Depuis un point de saut, les lots de marches sont numérotés globalement et
+ * répartis en alternance : le worker k sur n effectue les lots k, k + n,
+ * k + 2n, etc. Chaque marche tire ses nombres du générateur de son indice
+ * (<code>RandomWalk.stream</code>) sous une graine propre au point de saut, de
+ * sorte que les marches d'indice donné sont les mêmes quel que soit le nombre
+ * de workers ; seul l'ordre d'arrivée des résultats dépend de l'exécution.
+ * </p>
+ * <p>
+ * Le protocole est textuel, une ligne par message. Les actions sont désignées
+ * par leur indice dans <code>problem.getActions()</code>, identique dans tous
+ * les processus puisqu'ils instancient le même problème :
+ * </p>
+ * <ul>
+ * <li>worker vers coordinateur : <code>HELLO id nbActions</code>,
+ * <code>BEST h i1,i2,...</code>, <code>PLAN i1,i2,...</code> ;</li>
+ * <li>coordinateur vers worker : <code>JUMP i1,i2,...</code> (vide pour l'état
+ * initial), <code>STOP</code>.</li>
+ * </ul>
+ *
+ * @author D. Pellier
+ * @version 4.0 - 30.11.2021
+ */
+@CommandLine.Command(name = "DMRW", version = "DMRW 1.0", description = "Solves a specified planning problem using random walks spread over several local JVM processes.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+
+public class DistributedMRW extends AbstractPlanner {
+
+    /**
+     * Nombre de marches d'un worker entre deux lectures des messages du
+     * coordinateur.
+     */
+    private static final int WALKS_PER_BATCH = 50;
+
+    /**
+     * Nombre de rapports sans amélioration après lequel le coordinateur fait
+     * repartir les workers de l'état initial, par worker.
+     */
+    private static final int STAGNATION_PER_WORKER = 40;
+
+    private int workers;
+    private int port;
+    private int workerPort;
+    private int workerId;
+    private Long seed;
+    private boolean pruneActions;
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(DistributedMRW.class.getName());
+
+    /**
+     * Instantiates the planning problem from a parsed problem.
+     *
+     * @param problem the problem to instantiate.
+     * @return the instantiated planning problem or null if the problem cannot be
+     *         instantiated.
+     */
+    @Override
+    public Problem instantiate(DefaultParsedProblem problem) {
+        final Problem pb = new DefaultProblem(problem);
+        pb.instantiate();
+        return pb;
+    }
+
+    /**
+     * Search a solution plan to a specified domain and problem. The planner acts
+     * as the coordinator, or as a worker when it was started with
+     * <code>--worker</code>.
+     *
+     * @param problem the problem to solve.
+     * @return the plan found or null if no plan was found.
+     */
+    @Override
+    public Plan solve(final Problem problem) {
+        if (this.workerPort > 0) {
+            this.runWorker(problem);
+            return null;
+        }
+        return this.runCoordinator(problem);
+    }
+
+    /**
+     * Boucle du coordinateur.
+     */
+    private Plan runCoordinator(final Problem problem) {
+        final long begin = System.currentTimeMillis();
+        final long deadline = begin + this.getTimeout() * 1000L;
+        final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+        final List<PrintWriter> outputs = new ArrayList<>();
+        final List<Process> processes = new ArrayList<>();
+        final List<Socket> sockets = new ArrayList<>();
+
+        try (ServerSocket server = new ServerSocket(this.port, this.workers, InetAddress.getLoopbackAddress())) {
+            LOGGER.info("* Starting distributed random walk search with {} workers on port {}\n", this.workers,
+                    server.getLocalPort());
+            final long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
+            for (int k = 0; k < this.workers; k++) {
+                processes.add(this.startWorker(server.getLocalPort(), k, searchSeed));
+            }
+
+            server.setSoTimeout(60000);
+            for (int k = 0; k < this.workers; k++) {
+                Socket socket = server.accept();
+                sockets.add(socket);
+                outputs.add(new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8));
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                Thread thread = new Thread(() -> {
+                    try {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            inbox.add(line);
+                        }
+                    } catch (IOException e) {
+                        // Connexion fermée par le worker
+                    }
+                    inbox.add("BYE");
+                }, "mrw-coordinator-" + k);
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            double bestHeuristicValue = Double.MAX_VALUE;
+            int stagnation = 0;
+            int reports = 0;
+            int connected = this.workers;
+            while (connected > 0 && System.currentTimeMillis() < deadline) {
+                String message = inbox.poll(100, TimeUnit.MILLISECONDS);
+                if (message == null) {
+                    continue;
+                }
+                String[] fields = message.split(" ", 3);
+                switch (fields[0]) {
+                    case "HELLO":
+                        if (Integer.parseInt(fields[2]) != problem.getActions().size()) {
+                            LOGGER.error("* Worker {} grounded {} actions instead of {}\n", fields[1], fields[2],
+                                    problem.getActions().size());
+                        }
+                        break;
+                    case "BEST":
+                        reports++;
+                        double value = Double.parseDouble(fields[1]);
+                        if (value < bestHeuristicValue) {
+                            bestHeuristicValue = value;
+                            stagnation = 0;
+                            broadcast(outputs, "JUMP " + (fields.length > 2 ? fields[2] : ""));
+                        } else if (++stagnation >= STAGNATION_PER_WORKER * this.workers) {
+                            // Restart : tous les workers repartent de l'état initial
+                            bestHeuristicValue = Double.MAX_VALUE;
+                            stagnation = 0;
+                            broadcast(outputs, "JUMP ");
+                        }
+                        break;
+                    case "PLAN":
+                        List<Action> actions = decode(problem, fields.length > 1 ? message.substring(5) : "");
+                        if (actions != null) {
+                            broadcast(outputs, "STOP");
+                            this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+                            LOGGER.info("* Distributed random walk search succeeded after {} reports\n", reports);
+                            Plan plan = new SequentialPlan();
+                            for (int i = 0; i < actions.size(); i++) {
+                                plan.add(i, actions.get(i));
+                            }
+                            return plan;
+                        }
+                        LOGGER.error("* Invalid plan received from a worker\n");
+                        break;
+                    case "BYE":
+                        connected--;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+            LOGGER.info("* Distributed random walk search failed ({} reports, best heuristic value {})\n",
+                    reports, bestHeuristicValue);
+            return null;
+        } catch (SocketTimeoutException e) {
+            LOGGER.error("* Workers did not connect in time\n");
+            return null;
+        } catch (IOException e) {
+            LOGGER.error("* Distributed search failed: {}\n", e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            broadcast(outputs, "STOP");
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Rien à faire
+                }
+            }
+            for (Process process : processes) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Lance un worker dans une nouvelle JVM avec le même classpath.
+     */
+    private Process startWorker(int serverPort, int id, long searchSeed) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DistributedMRW.class.getName());
+        command.add("--worker=" + serverPort);
+        command.add("--worker-id=" + id);
+        command.add("--workers=" + this.workers);
+        command.add("--seed=" + searchSeed);
+        if (this.pruneActions) {
+            command.add("--prune");
+        }
+        command.add("--log=OFF");
+        command.add("--timeout=" + this.getTimeout());
+        command.add(this.getDomain());
+        command.add(this.getProblem());
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return builder.start();
+    }
+
+    /**
+     * Boucle d'un worker : marches aléatoires depuis le point de saut courant.
+     */
+    private void runWorker(final Problem problem) {
+        final List<Action> actions = problem.getActions();
+        // Les marches n'utilisent que les actions conservées par l'élagage, mais
+        // les messages gardent les indices de problem.getActions()
+        final List<Action> walkActions = this.pruneActions ? ActionPruning.prune(problem) : actions;
+        // Indice de chaque action dans problem.getActions(), pour encoder les messages
+        final Map<Action, Integer> indices = new IdentityHashMap<>();
+        for (int a = 0; a < actions.size(); a++) {
+            indices.put(actions.get(a), a);
+        }
+        final State initialState = new State(problem.getInitialState());
+        final Condition goal = problem.getGoal();
+        final int maxLengthWalk = Math.min(100, 2 * problem.getFluents().size()); // même borne que MyPlanner
+        final BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.workerPort)) {
+            PrintWriter output = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Thread thread = new Thread(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        inbox.add(line);
+                    }
+                } catch (IOException e) {
+                    // Connexion fermée par le coordinateur
+                }
+                inbox.add("STOP");
+            }, "mrw-worker");
+            thread.setDaemon(true);
+            thread.start();
+            output.println("HELLO " + this.workerId + " " + actions.size());
+
+            List<Action> jumpSequence = new ArrayList<>();
+            State jumpState = new State(initialState);
+            // Graine et numéro de lot relatifs au point de saut courant ; tous les
+            // workers reçoivent les mêmes sauts dans le même ordre
+            final long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
+            long jumps = 0;
+            long jumpSeed = RandomWalk.stream(searchSeed, -1).nextLong();
+            long batchIndex = this.workerId;
+            while (true) {
+                // Messages du coordinateur : nouveau point de saut ou arrêt
+                String message;
+                while ((message = inbox.poll()) != null) {
+                    if (message.equals("STOP")) {
+                        return;
+                    }
+                    if (message.startsWith("JUMP")) {
+                        List<Action> sequence = decodeSequence(actions, message.substring(4).trim());
+                        jumpSequence = sequence;
+                        jumpState = new State(initialState);
+                        for (Action action : sequence) {
+                            jumpState.apply(action.getUnconditionalEffect());
+                        }
+                        jumps++;
+                        jumpSeed = RandomWalk.stream(searchSeed, -1 - jumps).nextLong();
+                        batchIndex = this.workerId;
+                        PlannerEvents.Jump event = new PlannerEvents.Jump("MRW-Distributed");
+                        event.prefixLength = sequence.size();
+                        event.heuristic = RandomWalk.evaluateHeuristic(jumpState, goal);
+                        event.commit();
+                    }
+                }
+
+                double bestHeuristicValue = Double.MAX_VALUE;
+                List<Action> bestSequence = null;
+                PlannerEvents.WalkBatch batch = new PlannerEvents.WalkBatch("MRW-Distributed");
+                batch.begin();
+                for (int i = 0; i < WALKS_PER_BATCH; i++) {
+                    RandomWalk.Result walk = RandomWalk.walk(walkActions, jumpState, goal, maxLengthWalk,
+                            RandomWalk.stream(jumpSeed, batchIndex * WALKS_PER_BATCH + i));
+                    batch.walks++;
+                    batch.steps += walk.actions.size();
+                    batch.applicableActions += walk.applicableCount;
+                    batch.deadEnds += walk.deadEnd ? 1 : 0;
+                    if (walk.goalReached) {
+                        batch.goalReached = true;
+                        batch.bestHeuristic = 0;
+                        batch.commit();
+                        List<Action> sequence = new ArrayList<>(jumpSequence);
+                        sequence.addAll(walk.actions);
+                        output.println("PLAN " + encode(indices, sequence));
+                        return;
+                    }
+                    double heuristicValue = RandomWalk.evaluateHeuristic(walk.state, goal);
+                    if (heuristicValue < bestHeuristicValue) {
+                        bestHeuristicValue = heuristicValue;
+                        bestSequence = walk.actions;
+                    }
+                }
+                batch.bestHeuristic = bestHeuristicValue;
+                batch.commit();
+                batchIndex += this.workers;
+                if (bestSequence != null) {
+                    List<Action> sequence = new ArrayList<>(jumpSequence);
+                    sequence.addAll(bestSequence);
+                    output.println("BEST " + bestHeuristicValue + " " + encode(indices, sequence));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("* Worker {} lost the coordinator: {}\n", this.workerId, e.getMessage());
+        }
+    }
+
+    private static void broadcast(List<PrintWriter> outputs, String message) {
+        for (PrintWriter output : outputs) {
+            output.println(message);
+        }
+    }
+
+    private static String encode(Map<Action, Integer> indices, List<Action> sequence) {
+        StringBuilder str = new StringBuilder();
+        for (Action action : sequence) {
+            if (str.length() > 0) {
+                str.append(',');
+            }
+            str.append(indices.get(action));
+        }
+        return str.toString();
+    }
+
+    private static List<Action> decodeSequence(List<Action> actions, String encoded) {
+        List<Action> sequence = new ArrayList<>();
+        if (!encoded.isEmpty()) {
+            for (String index : encoded.split(",")) {
+                sequence.add(actions.get(Integer.parseInt(index)));
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Décode un plan reçu et vérifie qu'il atteint le but.
+     *
+     * @return les actions du plan, ou null si le plan est invalide.
+     */
+    private static List<Action> decode(Problem problem, String encoded) {
+        List<Action> sequence = decodeSequence(problem.getActions(), encoded);
+        State state = new State(problem.getInitialState());
+        for (Action action : sequence) {
+            if (!action.isApplicable(state)) {
+                return null;
+            }
+            state.apply(action.getUnconditionalEffect());
+        }
+        return state.satisfy(problem.getGoal()) ? sequence : null;
+    }
+
+    /**
+     * Returns if a specified problem is supported by the planner. Just ADL problem
+     * can be solved by this planner.
+     *
+     * @param problem the problem to test.
+     * @return <code>true</code> if the problem is supported <code>false</code>
+     *         otherwise.
+     */
+    @Override
+    public boolean isSupported(Problem problem) {
+        return !problem.getRequirements().contains(RequireKey.ACTION_COSTS)
+                && !problem.getRequirements().contains(RequireKey.CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.CONTINOUS_EFFECTS)
+                && !problem.getRequirements().contains(RequireKey.DERIVED_PREDICATES)
+                && !problem.getRequirements().contains(RequireKey.DURATIVE_ACTIONS)
+                && !problem.getRequirements().contains(RequireKey.DURATION_INEQUALITIES)
+                && !problem.getRequirements().contains(RequireKey.FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.GOAL_UTILITIES)
+                && !problem.getRequirements().contains(RequireKey.METHOD_CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.NUMERIC_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.OBJECT_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.PREFERENCES)
+                && !problem.getRequirements().contains(RequireKey.TIMED_INITIAL_LITERALS)
+                && !problem.getRequirements().contains(RequireKey.HIERARCHY);
+    }
+
+    /**
+     * The main method of the <code>DMRW</code> planner.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final DistributedMRW planner = new DistributedMRW();
+            CommandLine cmd = new CommandLine(planner);
+            cmd.execute(args);
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the number of worker processes started by the coordinator.
+     *
+     * @param workers the number of workers. It must be greater than 0.
+     * @throws IllegalArgumentException if the number of workers is less than 1.
+     */
+    @CommandLine.Option(names = { "-n",
+            "--workers" }, defaultValue = "2", paramLabel = "<workers>", description = "Set the number of worker processes (preset 2).")
+    public void setWorkers(final int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Workers < 1");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Sets the local port of the coordinator. 0 lets the system choose a free
+     * port.
+     *
+     * @param port the port of the coordinator.
+     */
+    @CommandLine.Option(names = {
+            "--port" }, defaultValue = "0", paramLabel = "<port>", description = "Set the local port of the coordinator (preset 0: any free port).")
+    public void setPort(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Sets the seed of the walks. Each walk draws from its own stream derived from
+     * the seed, the current jump point and the walk index, so that the walks do
+     * not depend on the number of workers. Without seed, a random seed is drawn
+     * and logged so that the run can be replayed.
+     *
+     * @param seed the seed of the walks.
+     */
+    @CommandLine.Option(names = {
+            "--seed" }, paramLabel = "<seed>", description = "Set the seed of the walks (preset: none, a random seed is drawn and logged).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the planner as a worker connected to the coordinator on the given
+     * port. This option is set by the coordinator when it starts the workers.
+     *
+     * @param workerPort the port of the coordinator.
+     */
+    @CommandLine.Option(names = {
+            "--worker" }, defaultValue = "0", hidden = true, paramLabel = "<port>", description = "Run as a worker of the coordinator listening on this port.")
+    public void setWorkerPort(final int workerPort) {
+        this.workerPort = workerPort;
+    }
+
+    /**
+     * Sets the identifier of the worker.
+     *
+     * @param workerId the identifier of the worker.
+     */
+    @CommandLine.Option(names = {
+            "--worker-id" }, defaultValue = "0", hidden = true, paramLabel = "<id>", description = "Set the identifier of the worker.")
+    public void setWorkerId(final int workerId) {
+        this.workerId = workerId;
+    }
+
+    /**
+     * Enables the goal-relevance pruning of the actions walked by the workers.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the walks of the workers.")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+}
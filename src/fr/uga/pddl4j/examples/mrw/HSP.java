@@ -11,6 +11,7 @@ import fr.uga.pddl4j.problem.DefaultProblem;
 import fr.uga.pddl4j.problem.Problem;
 import fr.uga.pddl4j.problem.operator.Action;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.io.BufferedWriter;
 import java.io.FileWriter;
@@ -34,6 +35,11 @@ public class HSP extends AbstractPlanner {
 
     private double heuristicWeight;
     private StateHeuristic.Name heuristic;
+    private boolean compact;
+    private boolean useSymmetry;
+    private boolean pruneActions;
+    private String progressFile;
+    private long progressInterval;
     private String timeFile;
     private String lengthFile;
 
@@ -59,8 +65,14 @@ public class HSP extends AbstractPlanner {
      */
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
+        PlannerEvents.Phase event = new PlannerEvents.Phase("HSP", "instantiate");
+        event.begin();
         final Problem pb = new DefaultProblem(problem);
         pb.instantiate();
+        event.parseMillis = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
@@ -72,66 +84,120 @@ public class HSP extends AbstractPlanner {
      */
     @Override
     public Plan solve(final Problem problem) {
-        // Creates the A* search strategy
-        StateSpaceSearch search = StateSpaceSearch.getInstance(SearchStrategy.Name.ASTAR,
-                this.getHeuristic(), this.getHeuristicWeight(), this.getTimeout());
-        LOGGER.info("* Starting A* search \n");
-        // Search a solution
-        Plan plan = search.searchPlan(problem);
+        try (Progress progress = Progress.open(this.progressFile, this.progressInterval, "HSP")) {
+            PlannerEvents.Phase event = new PlannerEvents.Phase("HSP", "search");
+            event.begin();
+            Plan plan = this.search(problem, progress);
+            event.actions = problem.getActions().size();
+            event.fluents = problem.getFluents().size();
+            event.planLength = plan != null ? plan.size() : -1;
+            event.commit();
+            if (plan != null) {
+                progress.event("plan", "length", plan.size());
+            } else {
+                progress.event("failure");
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * Recherche A* avec le moteur choisi. Seul le moteur compact émet des
+     * événements de progression périodiques (nœuds développés, taille de la
+     * liste ouverte), la recherche de pddl4j n'offrant pas de point d'accroche.
+     *
+     * @param problem  le problème à résoudre.
+     * @param progress le flux d'événements de progression.
+     * @return le plan trouvé ou null.
+     */
+    private Plan search(final Problem problem, final Progress progress) {
+        Plan plan;
+        if (this.compact || this.useSymmetry || this.pruneActions) {
+            // Moteur A* interne : états compactés et structures primitives. La
+            // recherche de pddl4j explore toujours problem.getActions(), l'élagage
+            // n'est donc possible qu'avec ce moteur
+            List<Action> actions = this.pruneActions ? ActionPruning.prune(problem) : problem.getActions();
+            Symmetry symmetry = null;
+            if (this.useSymmetry) {
+                symmetry = Symmetry.detect(problem);
+                LOGGER.info("* {} classes of interchangeable objects {}\n", symmetry.getClassCount(),
+                        symmetry.describe(problem));
+                if (symmetry.isTrivial()) {
+                    symmetry = null;
+                } else if (this.pruneActions) {
+                    // Les formes canoniques peuvent utiliser des actions élaguées
+                    actions = symmetry.close(actions);
+                    LOGGER.info("* {} actions kept after closure under symmetry\n", actions.size());
+                }
+            }
+            CompactAStar search = new CompactAStar(problem, actions, this.getHeuristic(),
+                    this.getHeuristicWeight());
+            if (symmetry != null) {
+                search.setSymmetry(symmetry);
+            }
+            search.setProgress(progress);
+            LOGGER.info("* Starting compact A* search \n");
+            final long begin = System.currentTimeMillis();
+            plan = search.search(this.getTimeout());
+            this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+            this.getStatistics().setMemoryUsedToSearch(search.getMemoryUsed());
+        } else {
+            // Creates the A* search strategy
+            StateSpaceSearch search = StateSpaceSearch.getInstance(SearchStrategy.Name.ASTAR,
+                    this.getHeuristic(), this.getHeuristicWeight(), this.getTimeout());
+            LOGGER.info("* Starting A* search \n");
+            // Search a solution
+            plan = search.searchPlan(problem);
+            this.getStatistics().setTimeToSearch(search.getSearchingTime());
+            this.getStatistics().setMemoryUsedToSearch(search.getMemoryUsed());
+        }
         // If a plan is found update the statistics of the planner and log search
         // information
         if (plan != null) {
             LOGGER.info("* A* search succeeded\n");
-            this.getStatistics().setTimeToSearch(search.getSearchingTime());
-            this.getStatistics().setMemoryUsedToSearch(search.getMemoryUsed());
-
-            // Récupération des actions du plan
-            List<Action> actions = plan.actions(); // Utilisation de la méthode actions()
-
-            if (timeFile != null && lengthFile != null) {
-                StringBuilder rawTime = new StringBuilder();
-                StringBuilder rawLength = new StringBuilder();
-
-                String timeString = String.valueOf(this.getStatistics().getTimeToSearch()
-                        + this.getStatistics().getTimeToEncode() + this.getStatistics().getTimeToParse());
-
-                rawTime.append(";" + timeString);
-                rawLength.append(";" + actions.size());
-
-                // ecrire les résultats dans le fichier
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
-                    writer.write(rawTime.toString());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
-                    writer.write(rawLength.toString());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
-            }
-
         } else {
-            if (timeFile != null && lengthFile != null) {
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
-                    writer.write(";");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
-                    writer.write(";");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
             LOGGER.info("* A* search failed\n");
         }
+        this.writeResults(plan);
         // Return the plan found or null if the search fails.
         return plan;
     }
 
+    /**
+     * Ajoute le temps et la longueur du plan, ou des cellules vides si aucun plan
+     * n'a été trouvé, aux fichiers de résultats de <code>ScriptEvaluation</code>.
+     *
+     * @param plan le plan trouvé ou null.
+     */
+    private void writeResults(Plan plan) {
+        if (timeFile == null || lengthFile == null) {
+            return;
+        }
+        PlannerEvents.Phase event = new PlannerEvents.Phase("HSP", "write-results");
+        event.begin();
+        String rawTime = ";";
+        String rawLength = ";";
+        if (plan != null) {
+            rawTime += this.getStatistics().getTimeToSearch() + this.getStatistics().getTimeToEncode()
+                    + this.getStatistics().getTimeToParse();
+            rawLength += plan.actions().size();
+            event.planLength = plan.size();
+        }
+
+        // ecrire les résultats dans le fichier
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
+            writer.write(rawTime);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
+            writer.write(rawLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        event.commit();
+    }
+
     /**
      * Returns if a specified problem is supported by the planner. Just ADL problem
      * can be solved by this planner.
@@ -159,7 +225,10 @@ public class HSP extends AbstractPlanner {
     }
 
     /**
-     * The main method of the <code>ASP</code> planner.
+     * The main method of the <code>ASP</code> planner. The positional arguments
+     * are the domain and the problem, optionally followed by the time and length
+     * result files used by <code>ScriptEvaluation</code>; the planner options
+     * may appear anywhere.
      *
      * @param args the arguments of the command line.
      */
@@ -167,13 +236,17 @@ public class HSP extends AbstractPlanner {
 
         try {
             final HSP planner = new HSP();
-            if (args.length == 4) {
-                planner.setTimeFile(args[2]);
-                planner.setLengthFile(args[3]);
-            }
             planner.setTimeout(900);
             CommandLine cmd = new CommandLine(planner);
-            cmd.execute(new String[] { args[0], args[1] });
+            List<String> arguments = new ArrayList<>(List.of(args));
+            List<Integer> positionals = Planners.positionals(cmd, args);
+            if (positionals.size() == 4) {
+                planner.setTimeFile(args[positionals.get(2)]);
+                planner.setLengthFile(args[positionals.get(3)]);
+                arguments.remove((int) positionals.get(3));
+                arguments.remove((int) positionals.get(2));
+            }
+            cmd.execute(arguments.toArray(new String[0]));
         } catch (IllegalArgumentException e) {
             LOGGER.fatal(e.getMessage());
         }
@@ -226,4 +299,67 @@ public class HSP extends AbstractPlanner {
     public void setHeuristic(StateHeuristic.Name heuristic) {
         this.heuristic = heuristic;
     }
+
+    /**
+     * Uses the compact A* engine of the project instead of the generic search
+     * of pddl4j.
+     *
+     * @param compact <code>true</code> to use the compact engine.
+     */
+    @CommandLine.Option(names = {
+            "--compact" }, description = "Use the compact A* engine (packed states, primitive open and closed lists).")
+    public void setCompact(final boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Detects the interchangeable objects of the problem and treats symmetric
+     * states as duplicates. Implies the compact A* engine.
+     *
+     * @param useSymmetry <code>true</code> to reduce the search by symmetry.
+     */
+    @CommandLine.Option(names = {
+            "--symmetry" }, description = "Treat states that differ by a permutation of interchangeable objects as duplicates (implies --compact).")
+    public void setUseSymmetry(final boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+    }
+
+    /**
+     * Enables the goal-relevance pruning of the actions before the search.
+     * Implies the compact A* engine.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the search (implies --compact).")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+
+    /**
+     * Writes progress events as JSON Lines to a file, or to the standard output
+     * with "-".
+     *
+     * @param progressFile the progress file.
+     */
+    @CommandLine.Option(names = {
+            "--progress" }, paramLabel = "<file|->", description = "Write JSON Lines progress events to a file or to the standard output (-).")
+    public void setProgressFile(final String progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    /**
+     * Sets the interval between two periodic progress events.
+     *
+     * @param progressInterval the interval in milliseconds.
+     * @throws IllegalArgumentException if the interval is not strictly positive.
+     */
+    @CommandLine.Option(names = {
+            "--progress-interval" }, defaultValue = "1000", paramLabel = "<ms>", description = "Set the interval between two progress events in milliseconds (preset 1000).")
+    public void setProgressInterval(final long progressInterval) {
+        if (progressInterval <= 0) {
+            throw new IllegalArgumentException("Progress interval <= 0");
+        }
+        this.progressInterval = progressInterval;
+    }
 }
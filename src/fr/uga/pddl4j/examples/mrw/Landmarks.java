@@ -0,0 +1,359 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Landmarks de fluents d'un problème instancié et compteur de landmarks pour
+ * guider les marches aléatoires.
+ * <p>
+ * L'extraction se fait une seule fois par problème, par chaînage arrière depuis
+ * les fluents du but dans la relaxation sans effets négatifs : les préconditions
+ * communes à tous les premiers producteurs possibles d'un landmark sont aussi
+ * des landmarks, ordonnés avant lui. Le compteur suit ensuite, pendant chaque
+ * marche, les landmarks déjà acceptés (comme dans LAMA) et sert à la fois à
+ * noter les états finaux et à biaiser le choix des actions.
+ * </p>
+ */
+final class Landmarks {
+
+    /**
+     * Le fluent de chaque landmark.
+     */
+    private final int[] fluents;
+
+    /**
+     * L'identifiant de landmark de chaque fluent, ou -1.
+     */
+    private final int[] landmarkOf;
+
+    /**
+     * Les landmarks ordonnés avant chaque landmark.
+     */
+    private final int[][] parents;
+
+    /**
+     * Les landmarks ordonnés après chaque landmark.
+     */
+    private final int[][] children;
+
+    /**
+     * Vrai pour les landmarks qui sont des fluents du but.
+     */
+    private final boolean[] goal;
+
+    private Landmarks(int[] fluents, int[] landmarkOf, int[][] parents, int[][] children, boolean[] goal) {
+        this.fluents = fluents;
+        this.landmarkOf = landmarkOf;
+        this.parents = parents;
+        this.children = children;
+        this.goal = goal;
+    }
+
+    /**
+     * Extrait les landmarks de fluents d'un problème instancié.
+     *
+     * @param problem le problème instancié.
+     * @return les landmarks du problème.
+     */
+    static Landmarks extract(Problem problem) {
+        final int nbFluents = problem.getFluents().size();
+        final List<Action> actions = problem.getActions();
+        final int[][] preconditions = new int[actions.size()][];
+        final List<List<Integer>> achievers = new ArrayList<>();
+        final List<List<Integer>> consumers = new ArrayList<>();
+        for (int f = 0; f < nbFluents; f++) {
+            achievers.add(new ArrayList<>());
+            consumers.add(new ArrayList<>());
+        }
+        for (int a = 0; a < actions.size(); a++) {
+            Action action = actions.get(a);
+            preconditions[a] = toArray(action.getPrecondition().getPositiveFluents());
+            for (int f : preconditions[a]) {
+                consumers.get(f).add(a);
+            }
+            for (int f : toArray(action.getUnconditionalEffect().getPositiveFluents())) {
+                achievers.get(f).add(a);
+            }
+        }
+        BitVector init = problem.getInitialState().getPositiveFluents();
+
+        int[] landmarkOf = new int[nbFluents];
+        Arrays.fill(landmarkOf, -1);
+        List<Integer> fluents = new ArrayList<>();
+        List<List<Integer>> parents = new ArrayList<>();
+        List<Boolean> goal = new ArrayList<>();
+        Deque<Integer> open = new ArrayDeque<>();
+
+        // Le problème relaxé doit être soluble, sinon il n'y a rien à extraire
+        boolean[] reachable = relaxedReachable(-1, init, preconditions, achievers, consumers, actions, nbFluents);
+        BitVector goalFluents = problem.getGoal().getPositiveFluents();
+        for (int f = goalFluents.nextSetBit(0); f >= 0; f = goalFluents.nextSetBit(f + 1)) {
+            if (!reachable[f]) {
+                return new Landmarks(new int[0], landmarkOf, new int[0][], new int[0][], new boolean[0]);
+            }
+        }
+
+        for (int f = goalFluents.nextSetBit(0); f >= 0; f = goalFluents.nextSetBit(f + 1)) {
+            landmarkOf[f] = fluents.size();
+            fluents.add(f);
+            parents.add(new ArrayList<>());
+            goal.add(true);
+            open.add(f);
+        }
+
+        // Chaînage arrière : préconditions partagées par tous les premiers producteurs
+        while (!open.isEmpty()) {
+            int landmark = open.poll();
+            if (init.get(landmark)) {
+                continue;
+            }
+            boolean[] beforeLandmark = relaxedReachable(landmark, init, preconditions, achievers, consumers,
+                    actions, nbFluents);
+            BitVector shared = null;
+            for (int a : achievers.get(landmark)) {
+                if (isApplicable(preconditions[a], beforeLandmark)) {
+                    BitVector pre = actions.get(a).getPrecondition().getPositiveFluents();
+                    if (shared == null) {
+                        shared = new BitVector(pre);
+                    } else {
+                        shared.and(pre);
+                    }
+                }
+            }
+            if (shared == null) {
+                continue;
+            }
+            for (int f = shared.nextSetBit(0); f >= 0; f = shared.nextSetBit(f + 1)) {
+                if (f == landmark) {
+                    continue;
+                }
+                if (landmarkOf[f] < 0) {
+                    landmarkOf[f] = fluents.size();
+                    fluents.add(f);
+                    parents.add(new ArrayList<>());
+                    goal.add(false);
+                    open.add(f);
+                }
+                parents.get(landmarkOf[landmark]).add(landmarkOf[f]);
+            }
+        }
+
+        int nbLandmarks = fluents.size();
+        int[] fluentArray = new int[nbLandmarks];
+        int[][] parentArray = new int[nbLandmarks][];
+        boolean[] goalArray = new boolean[nbLandmarks];
+        List<List<Integer>> children = new ArrayList<>();
+        for (int l = 0; l < nbLandmarks; l++) {
+            children.add(new ArrayList<>());
+        }
+        for (int l = 0; l < nbLandmarks; l++) {
+            fluentArray[l] = fluents.get(l);
+            goalArray[l] = goal.get(l);
+            parentArray[l] = parents.get(l).stream().mapToInt(Integer::intValue).toArray();
+            for (int p : parentArray[l]) {
+                children.get(p).add(l);
+            }
+        }
+        int[][] childArray = new int[nbLandmarks][];
+        for (int l = 0; l < nbLandmarks; l++) {
+            childArray[l] = children.get(l).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new Landmarks(fluentArray, landmarkOf, parentArray, childArray, goalArray);
+    }
+
+    /**
+     * Calcule les fluents accessibles depuis l'état initial dans la relaxation
+     * sans effets négatifs, sans jamais produire le fluent exclu.
+     */
+    private static boolean[] relaxedReachable(int excluded, BitVector init, int[][] preconditions,
+            List<List<Integer>> achievers, List<List<Integer>> consumers, List<Action> actions, int nbFluents) {
+        boolean[] reached = new boolean[nbFluents];
+        int[] missing = new int[preconditions.length];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int a = 0; a < preconditions.length; a++) {
+            missing[a] = preconditions[a].length;
+        }
+        for (int f = init.nextSetBit(0); f >= 0; f = init.nextSetBit(f + 1)) {
+            if (f != excluded) {
+                reached[f] = true;
+                queue.add(f);
+            }
+        }
+        for (int a = 0; a < preconditions.length; a++) {
+            if (missing[a] == 0) {
+                queue.addAll(fire(a, excluded, reached, actions));
+            }
+        }
+        while (!queue.isEmpty()) {
+            int f = queue.poll();
+            for (int a : consumers.get(f)) {
+                if (--missing[a] == 0) {
+                    queue.addAll(fire(a, excluded, reached, actions));
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static List<Integer> fire(int action, int excluded, boolean[] reached, List<Action> actions) {
+        List<Integer> added = new ArrayList<>();
+        BitVector effects = actions.get(action).getUnconditionalEffect().getPositiveFluents();
+        for (int f = effects.nextSetBit(0); f >= 0; f = effects.nextSetBit(f + 1)) {
+            if (f != excluded && !reached[f]) {
+                reached[f] = true;
+                added.add(f);
+            }
+        }
+        return added;
+    }
+
+    private static boolean isApplicable(int[] precondition, boolean[] reached) {
+        for (int f : precondition) {
+            if (!reached[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] toArray(BitVector vector) {
+        return vector.stream().toArray();
+    }
+
+    /**
+     * Retourne le nombre de landmarks extraits.
+     *
+     * @return le nombre de landmarks.
+     */
+    int size() {
+        return this.fluents.length;
+    }
+
+    /**
+     * Crée un compteur de landmarks pour guider des marches.
+     *
+     * @param bias la probabilité de choisir une action qui atteint un nouveau
+     *             landmark quand il en existe une.
+     * @return un nouveau compteur.
+     */
+    Counter newCounter(double bias) {
+        return new Counter(bias);
+    }
+
+    /**
+     * Compteur de landmarks mis à jour incrémentalement le long d'une marche.
+     * Un landmark est accepté quand il devient vrai après tous les landmarks
+     * ordonnés avant lui.
+     */
+    final class Counter implements RandomWalk.Guide {
+
+        private final boolean[] accepted;
+        private int acceptedCount;
+        private final double bias;
+
+        private Counter(double bias) {
+            this.accepted = new boolean[Landmarks.this.fluents.length];
+            this.bias = bias;
+        }
+
+        @Override
+        public void start(State state) {
+            Arrays.fill(this.accepted, false);
+            this.acceptedCount = 0;
+            for (int l = 0; l < Landmarks.this.fluents.length; l++) {
+                if (state.get(Landmarks.this.fluents[l])) {
+                    this.accepted[l] = true;
+                    this.acceptedCount++;
+                }
+            }
+        }
+
+        @Override
+        public Action select(List<Action> applicableActions, State state, RandomGenerator random) {
+            if (this.acceptedCount < this.accepted.length && random.nextDouble() < this.bias) {
+                List<Action> progress = new ArrayList<>();
+                for (Action action : applicableActions) {
+                    if (this.reachesNewLandmark(action)) {
+                        progress.add(action);
+                    }
+                }
+                if (!progress.isEmpty()) {
+                    return progress.get(random.nextInt(progress.size()));
+                }
+            }
+            return applicableActions.get(random.nextInt(applicableActions.size()));
+        }
+
+        @Override
+        public void applied(Action action, State state) {
+            BitVector effects = action.getUnconditionalEffect().getPositiveFluents();
+            for (int f = effects.nextSetBit(0); f >= 0; f = effects.nextSetBit(f + 1)) {
+                int l = Landmarks.this.landmarkOf[f];
+                if (l >= 0 && !this.accepted[l] && this.parentsAccepted(l)) {
+                    this.accepted[l] = true;
+                    this.acceptedCount++;
+                }
+            }
+        }
+
+        /**
+         * Retourne la valeur du compteur pour l'état atteint par la marche : les
+         * landmarks pas encore acceptés plus ceux acceptés mais de nouveau requis
+         * (but ou précondition d'un landmark non accepté) et faux dans l'état.
+         *
+         * @param state l'état courant de la marche.
+         * @return le nombre de landmarks restant à atteindre.
+         */
+        double value(State state) {
+            int required = 0;
+            for (int l = 0; l < this.accepted.length; l++) {
+                if (this.accepted[l] && !state.get(Landmarks.this.fluents[l]) && this.requiredAgain(l)) {
+                    required++;
+                }
+            }
+            return this.accepted.length - this.acceptedCount + required;
+        }
+
+        private boolean reachesNewLandmark(Action action) {
+            BitVector effects = action.getUnconditionalEffect().getPositiveFluents();
+            for (int f = effects.nextSetBit(0); f >= 0; f = effects.nextSetBit(f + 1)) {
+                int l = Landmarks.this.landmarkOf[f];
+                if (l >= 0 && !this.accepted[l] && this.parentsAccepted(l)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean parentsAccepted(int landmark) {
+            for (int p : Landmarks.this.parents[landmark]) {
+                if (!this.accepted[p]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean requiredAgain(int landmark) {
+            if (Landmarks.this.goal[landmark]) {
+                return true;
+            }
+            for (int c : Landmarks.this.children[landmark]) {
+                if (!this.accepted[c]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
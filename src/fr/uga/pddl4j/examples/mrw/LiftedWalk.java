@@ -0,0 +1,882 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.parser.Connector;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.Expression;
+import fr.uga.pddl4j.parser.NamedTypedList;
+import fr.uga.pddl4j.parser.ParsedAction;
+import fr.uga.pddl4j.parser.Symbol;
+import fr.uga.pddl4j.parser.SymbolType;
+import fr.uga.pddl4j.parser.TypedSymbol;
+import fr.uga.pddl4j.problem.operator.Action;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+/**
+ * Marches aléatoires sur le problème non instancié, pour le mode
+ * <code>--lifted</code> de <code>MyPlanner</code>.
+ * <p>
+ * Le moteur travaille directement sur le problème analysé : les schémas
+ * d'actions sont compilés (paramètres, domaines de types, atomes de la
+ * précondition et des effets) et l'état courant est un ensemble d'atomes
+ * codés en <code>long</code>, indexé par prédicat et par (prédicat, position,
+ * objet). À chaque pas, les liaisons applicables de chaque schéma sont
+ * énumérées par une jointure sur les atomes positifs de la précondition, en
+ * partant pour chaque atome de la plus petite liste d'index compatible avec
+ * les paramètres déjà liés ; une liaison est tirée uniformément parmi toutes
+ * (échantillonnage par réservoir), comme le fait <code>RandomWalk</code> parmi
+ * les actions instanciées applicables. Seules les actions d'un plan retourné
+ * sont instanciées en objets <code>Action</code> de pddl4j, une seule fois
+ * chacune.
+ * </p>
+ * <p>
+ * Le fragment accepté est STRIPS avec types, préconditions négatives et
+ * égalité : les préconditions et le but sont des conjonctions de littéraux,
+ * les effets des conjonctions de littéraux. Les effets sont appliqués comme
+ * dans pddl4j : retraits puis ajouts.
+ * </p>
+ */
+final class LiftedWalk {
+
+    /**
+     * Un atome d'un schéma : prédicat et termes (indice de paramètre, ou
+     * <code>-(o + 1)</code> pour l'objet constant <code>o</code>).
+     */
+    private static final class Atom {
+
+        private final int predicate;
+        private final int[] terms;
+
+        private Atom(int predicate, int[] terms) {
+            this.predicate = predicate;
+            this.terms = terms;
+        }
+    }
+
+    /**
+     * Un schéma d'action compilé.
+     */
+    private static final class Schema {
+
+        private final String name;
+        private final int arity;
+        // Objets acceptés par le type de chaque paramètre
+        private final boolean[][] accepts;
+        private final int[][] domain;
+        // Atomes positifs de la précondition, dans l'ordre de la jointure
+        private final Atom[] positive;
+        private final Atom[] negative;
+        // Couples de termes égaux ou différents
+        private final int[][] equal;
+        private final int[][] different;
+        private final Atom[] add;
+        private final Atom[] delete;
+
+        private Schema(String name, int arity, boolean[][] accepts, int[][] domain, Atom[] positive,
+                Atom[] negative, int[][] equal, int[][] different, Atom[] add, Atom[] delete) {
+            this.name = name;
+            this.arity = arity;
+            this.accepts = accepts;
+            this.domain = domain;
+            this.positive = positive;
+            this.negative = negative;
+            this.equal = equal;
+            this.different = different;
+            this.add = add;
+            this.delete = delete;
+        }
+    }
+
+    /**
+     * Résultat d'une marche.
+     */
+    static final class Result {
+
+        /**
+         * Les pas de la marche : indice du schéma suivi des objets liés.
+         */
+        final List<int[]> steps;
+
+        /**
+         * <code>true</code> si le but est atteint.
+         */
+        final boolean goalReached;
+
+        /**
+         * <code>true</code> si la marche s'est arrêtée faute d'action
+         * applicable.
+         */
+        final boolean deadEnd;
+
+        /**
+         * Nombre de littéraux du but non satisfaits dans l'état final.
+         */
+        final int goalDistance;
+
+        private Result(List<int[]> steps, boolean goalReached, boolean deadEnd, int goalDistance) {
+            this.steps = steps;
+            this.goalReached = goalReached;
+            this.deadEnd = deadEnd;
+            this.goalDistance = goalDistance;
+        }
+    }
+
+    private final List<String> objects;
+    private final int[] predicateOffset;
+    private final List<Schema> schemas;
+    private final long[] initialAtoms;
+    private final long[] goalPositive;
+    private final long[] goalNegative;
+
+    // Nombre d'atomes permis par les types des arguments des prédicats
+    private final long atomBound;
+
+    // Puissances du nombre d'objets pour le codage des atomes
+    private final long[] power;
+
+    // État courant : atomes, atomes par prédicat, atomes par (prédicat,
+    // position, objet) alloués à la demande
+    private final Set<Long> atoms = new HashSet<>();
+    private final List<Set<Long>> byPredicate;
+    private final List<Set<Long>> byArgument;
+
+    // Changements depuis l'état initial, annulés au début de chaque marche
+    private long[] undoKeys = new long[256];
+    private boolean[] undoAdded = new boolean[256];
+    private int undoCount;
+
+    // Tirage en cours : nombre de liaisons applicables vues et liaison retenue
+    private int applicableCount;
+    private int chosenSchema;
+    private int[] chosen = new int[0];
+
+    // Actions déjà instanciées, par pas
+    private final Map<String, Action> grounded = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private LiftedWalk(List<String> objects, int[] arities, List<Schema> schemas, long[] initialAtoms,
+            long[] goalPositive, long[] goalNegative, long atomBound, long[] power) {
+        this.objects = objects;
+        this.predicateOffset = new int[arities.length + 1];
+        for (int p = 0; p < arities.length; p++) {
+            this.predicateOffset[p + 1] = this.predicateOffset[p] + arities[p];
+        }
+        this.schemas = schemas;
+        this.initialAtoms = initialAtoms;
+        this.goalPositive = goalPositive;
+        this.goalNegative = goalNegative;
+        this.atomBound = atomBound;
+        this.power = power;
+        this.byPredicate = new ArrayList<>(arities.length);
+        for (int p = 0; p < arities.length; p++) {
+            this.byPredicate.add(new LinkedHashSet<>());
+        }
+        this.byArgument = new ArrayList<>(Collections.nCopies(this.predicateOffset[arities.length] * objects.size(),
+                (Set<Long>) null));
+        for (long key : initialAtoms) {
+            this.insert(key);
+        }
+    }
+
+    /**
+     * Compile le problème analysé.
+     *
+     * @param problem le problème analysé, non instancié.
+     * @return le moteur de marches.
+     * @throws IllegalArgumentException si le problème sort du fragment accepté
+     *                                  ou a trop d'objets pour le codage des
+     *                                  atomes.
+     */
+    static LiftedWalk compile(DefaultParsedProblem problem) {
+        // Objets du problème et constantes du domaine, avec tous leurs types
+        Map<String, List<String>> parents = new HashMap<>();
+        for (TypedSymbol<String> type : problem.getTypes()) {
+            parents.put(type.getValue(), values(type.getTypes()));
+        }
+        List<String> objects = new ArrayList<>();
+        List<Set<String>> objectTypes = new ArrayList<>();
+        Map<String, Integer> objectIndex = new HashMap<>();
+        List<TypedSymbol<String>> declared = new ArrayList<>(problem.getConstants());
+        declared.addAll(problem.getObjects());
+        for (TypedSymbol<String> object : declared) {
+            if (objectIndex.containsKey(object.getValue())) {
+                continue;
+            }
+            objectIndex.put(object.getValue(), objects.size());
+            objects.add(object.getValue());
+            Set<String> types = new HashSet<>();
+            List<String> open = values(object.getTypes());
+            while (!open.isEmpty()) {
+                String type = open.remove(open.size() - 1);
+                if (types.add(type)) {
+                    open.addAll(parents.getOrDefault(type, List.of()));
+                }
+            }
+            types.add("object");
+            objectTypes.add(types);
+        }
+
+        List<String> predicates = new ArrayList<>();
+        Map<String, Integer> predicateIndex = new HashMap<>();
+        int[] arities = new int[problem.getPredicates().size()];
+        int maxArity = 0;
+        long atomBound = 0;
+        for (NamedTypedList predicate : problem.getPredicates()) {
+            String name = predicate.getName().getValue();
+            long atoms = 1;
+            for (TypedSymbol<String> argument : predicate.getArguments()) {
+                List<String> types = values(argument.getTypes());
+                long count = objectTypes.stream()
+                        .filter(t -> types.isEmpty() || types.stream().anyMatch(t::contains)).count();
+                atoms = Math.min(Integer.MAX_VALUE, atoms * count);
+            }
+            atomBound = Math.min(Integer.MAX_VALUE, atomBound + atoms);
+            arities[predicates.size()] = predicate.getArguments().size();
+            maxArity = Math.max(maxArity, arities[predicates.size()]);
+            predicateIndex.put(name, predicates.size());
+            predicates.add(name);
+        }
+
+        // Un atome est codé p + P * (a0 + n * a1 + n^2 * a2 ...)
+        long[] power = new long[maxArity + 1];
+        power[0] = predicates.size();
+        for (int k = 1; k <= maxArity; k++) {
+            if (power[k - 1] > Long.MAX_VALUE / Math.max(1, objects.size())) {
+                throw new IllegalArgumentException("Too many objects for the lifted atom encoding");
+            }
+            power[k] = power[k - 1] * objects.size();
+        }
+
+        Compiler compiler = new Compiler(objectIndex, predicateIndex, power);
+        List<Schema> schemas = new ArrayList<>();
+        for (ParsedAction action : problem.getActions()) {
+            schemas.add(compiler.schema(action, objects.size(), objectTypes));
+        }
+
+        List<Long> initial = new ArrayList<>();
+        for (Expression<String> fact : problem.getInit()) {
+            if (fact.getConnector() != Connector.ATOM) {
+                throw new IllegalArgumentException("Lifted walks only support atomic initial facts: " + fact);
+            }
+            initial.add(compiler.groundKey(fact));
+        }
+        List<Long> goalPositive = new ArrayList<>();
+        List<Long> goalNegative = new ArrayList<>();
+        compiler.goal(problem.getGoal(), goalPositive, goalNegative);
+
+        return new LiftedWalk(objects, arities, schemas, toArray(initial), toArray(goalPositive),
+                toArray(goalNegative), atomBound, power);
+    }
+
+    /**
+     * Retourne le nombre de schémas d'actions.
+     *
+     * @return le nombre de schémas.
+     */
+    int getSchemaCount() {
+        return this.schemas.size();
+    }
+
+    /**
+     * Retourne le nombre d'objets, constantes du domaine comprises.
+     *
+     * @return le nombre d'objets.
+     */
+    int getObjectCount() {
+        return this.objects.size();
+    }
+
+    /**
+     * Retourne le nombre d'atomes de l'état initial.
+     *
+     * @return le nombre d'atomes initiaux.
+     */
+    int getInitialAtomCount() {
+        return this.initialAtoms.length;
+    }
+
+    /**
+     * Retourne le nombre d'atomes permis par les types des arguments des
+     * prédicats, borne supérieure du nombre de fluents du problème instancié.
+     *
+     * @return la borne du nombre d'atomes.
+     */
+    long getAtomBound() {
+        return this.atomBound;
+    }
+
+    /**
+     * Retourne le nombre d'actions instanciées jusqu'ici par
+     * {@link #ground(int[])}.
+     *
+     * @return le nombre d'actions instanciées.
+     */
+    int getGroundedCount() {
+        return this.grounded.size();
+    }
+
+    /**
+     * Fait une marche aléatoire depuis l'état initial.
+     *
+     * @param maxLength la longueur maximale de la marche.
+     * @param random    le générateur aléatoire.
+     * @return le résultat de la marche.
+     */
+    Result walk(int maxLength, RandomGenerator random) {
+        this.reset();
+        List<int[]> steps = new ArrayList<>();
+        if (this.goalDistance() == 0) {
+            return new Result(steps, true, false, 0);
+        }
+        for (int j = 0; j < maxLength; j++) {
+            this.applicableCount = 0;
+            for (int s = 0; s < this.schemas.size(); s++) {
+                Schema schema = this.schemas.get(s);
+                int[] binding = new int[schema.arity];
+                Arrays.fill(binding, -1);
+                this.join(s, schema, 0, binding, random);
+            }
+            if (this.applicableCount == 0) {
+                return new Result(steps, false, true, this.goalDistance());
+            }
+            int[] step = new int[this.chosen.length + 1];
+            step[0] = this.chosenSchema;
+            System.arraycopy(this.chosen, 0, step, 1, this.chosen.length);
+            steps.add(step);
+            this.apply(this.schemas.get(this.chosenSchema), this.chosen);
+            if (this.goalDistance() == 0) {
+                return new Result(steps, true, false, 0);
+            }
+        }
+        return new Result(steps, false, false, this.goalDistance());
+    }
+
+    /**
+     * Rejoue des pas de marche depuis l'état initial sur un ensemble d'atomes
+     * distinct des index de la marche, en vérifiant les types des objets liés,
+     * chaque précondition puis le but.
+     *
+     * @param steps les pas : indice du schéma suivi des objets liés.
+     * @return <code>true</code> si les pas forment un plan du problème.
+     */
+    boolean validate(List<int[]> steps) {
+        Set<Long> state = new HashSet<>();
+        for (long key : this.initialAtoms) {
+            state.add(key);
+        }
+        for (int[] step : steps) {
+            if (step[0] < 0 || step[0] >= this.schemas.size()) {
+                return false;
+            }
+            Schema schema = this.schemas.get(step[0]);
+            if (step.length != schema.arity + 1) {
+                return false;
+            }
+            int[] binding = Arrays.copyOfRange(step, 1, step.length);
+            for (int k = 0; k < schema.arity; k++) {
+                if (binding[k] < 0 || binding[k] >= this.objects.size() || !schema.accepts[k][binding[k]]) {
+                    return false;
+                }
+            }
+            for (Atom atom : schema.positive) {
+                if (!state.contains(this.key(atom, binding))) {
+                    return false;
+                }
+            }
+            for (Atom atom : schema.negative) {
+                if (state.contains(this.key(atom, binding))) {
+                    return false;
+                }
+            }
+            for (int[] pair : schema.equal) {
+                if (this.value(pair[0], binding) != this.value(pair[1], binding)) {
+                    return false;
+                }
+            }
+            for (int[] pair : schema.different) {
+                if (this.value(pair[0], binding) == this.value(pair[1], binding)) {
+                    return false;
+                }
+            }
+            for (Atom atom : schema.delete) {
+                state.remove(this.key(atom, binding));
+            }
+            for (Atom atom : schema.add) {
+                state.add(this.key(atom, binding));
+            }
+        }
+        for (long key : this.goalPositive) {
+            if (!state.contains(key)) {
+                return false;
+            }
+        }
+        for (long key : this.goalNegative) {
+            if (state.contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Instancie l'action d'un pas de marche. L'action porte le nom du schéma et
+     * les indices des objets liés ; elle n'a ni précondition ni effet, le
+     * moteur gardant ceux du schéma.
+     *
+     * @param step le pas : indice du schéma suivi des objets liés.
+     * @return l'action instanciée, la même pour deux pas identiques.
+     */
+    Action ground(int[] step) {
+        return this.grounded.computeIfAbsent(this.toString(step), key -> {
+            Schema schema = this.schemas.get(step[0]);
+            Action action = new Action(schema.name, schema.arity);
+            for (int k = 0; k < schema.arity; k++) {
+                action.setValueOfParameter(k, step[k + 1]);
+            }
+            return action;
+        });
+    }
+
+    /**
+     * Retourne l'écriture PDDL d'une action instanciée par ce moteur.
+     *
+     * @param action l'action.
+     * @return l'action sous la forme <code>(nom objet ...)</code>.
+     */
+    String toString(Action action) {
+        StringBuilder str = new StringBuilder("(").append(action.getName());
+        for (int k = 0; k < action.arity(); k++) {
+            str.append(' ').append(this.objects.get(action.getValueOfParameter(k)));
+        }
+        return str.append(')').toString();
+    }
+
+    private String toString(int[] step) {
+        StringBuilder str = new StringBuilder("(").append(this.schemas.get(step[0]).name);
+        for (int k = 1; k < step.length; k++) {
+            str.append(' ').append(this.objects.get(step[k]));
+        }
+        return str.append(')').toString();
+    }
+
+    /**
+     * Énumère les liaisons applicables d'un schéma, atome positif par atome
+     * positif, puis pour les paramètres restants par leur domaine de type.
+     */
+    private void join(int s, Schema schema, int depth, int[] binding, RandomGenerator random) {
+        if (depth == schema.positive.length) {
+            this.bindFree(s, schema, 0, binding, random);
+            return;
+        }
+        Atom atom = schema.positive[depth];
+        // Plus petite liste d'atomes compatible avec les termes déjà liés
+        Set<Long> candidates = this.byPredicate.get(atom.predicate);
+        for (int k = 0; k < atom.terms.length; k++) {
+            int object = this.value(atom.terms[k], binding);
+            if (object >= 0) {
+                Set<Long> indexed = this.byArgument.get(this.argumentIndex(atom.predicate, k, object));
+                if (indexed == null || indexed.isEmpty()) {
+                    return;
+                }
+                if (indexed.size() < candidates.size()) {
+                    candidates = indexed;
+                }
+            }
+        }
+        int[] bound = new int[atom.terms.length];
+        for (long key : candidates) {
+            int count = 0;
+            boolean consistent = true;
+            for (int k = 0; k < atom.terms.length && consistent; k++) {
+                int object = this.argument(key, k);
+                int term = atom.terms[k];
+                if (term < 0) {
+                    consistent = object == -term - 1;
+                } else if (binding[term] >= 0) {
+                    consistent = binding[term] == object;
+                } else if (schema.accepts[term][object]) {
+                    binding[term] = object;
+                    bound[count++] = term;
+                } else {
+                    consistent = false;
+                }
+            }
+            if (consistent) {
+                this.join(s, schema, depth + 1, binding, random);
+            }
+            for (int k = 0; k < count; k++) {
+                binding[bound[k]] = -1;
+            }
+        }
+    }
+
+    private void bindFree(int s, Schema schema, int parameter, int[] binding, RandomGenerator random) {
+        if (parameter == schema.arity) {
+            if (this.isApplicable(schema, binding)) {
+                // Échantillonnage par réservoir : chaque liaison est gardée
+                // avec une probabilité 1 / nombre de liaisons vues
+                this.applicableCount++;
+                if (random.nextInt(this.applicableCount) == 0) {
+                    this.chosenSchema = s;
+                    this.chosen = binding.clone();
+                }
+            }
+            return;
+        }
+        if (binding[parameter] >= 0) {
+            this.bindFree(s, schema, parameter + 1, binding, random);
+            return;
+        }
+        for (int object : schema.domain[parameter]) {
+            binding[parameter] = object;
+            this.bindFree(s, schema, parameter + 1, binding, random);
+        }
+        binding[parameter] = -1;
+    }
+
+    private boolean isApplicable(Schema schema, int[] binding) {
+        for (Atom atom : schema.negative) {
+            if (this.atoms.contains(this.key(atom, binding))) {
+                return false;
+            }
+        }
+        for (int[] pair : schema.equal) {
+            if (this.value(pair[0], binding) != this.value(pair[1], binding)) {
+                return false;
+            }
+        }
+        for (int[] pair : schema.different) {
+            if (this.value(pair[0], binding) == this.value(pair[1], binding)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void apply(Schema schema, int[] binding) {
+        for (Atom atom : schema.delete) {
+            long key = this.key(atom, binding);
+            if (this.remove(key)) {
+                this.record(key, false);
+            }
+        }
+        for (Atom atom : schema.add) {
+            long key = this.key(atom, binding);
+            if (this.insert(key)) {
+                this.record(key, true);
+            }
+        }
+    }
+
+    private void record(long key, boolean added) {
+        if (this.undoCount == this.undoKeys.length) {
+            this.undoKeys = Arrays.copyOf(this.undoKeys, 2 * this.undoCount);
+            this.undoAdded = Arrays.copyOf(this.undoAdded, 2 * this.undoCount);
+        }
+        this.undoKeys[this.undoCount] = key;
+        this.undoAdded[this.undoCount++] = added;
+    }
+
+    /**
+     * Revient à l'état initial en annulant les changements de la dernière
+     * marche, du dernier au premier.
+     */
+    private void reset() {
+        for (int u = this.undoCount - 1; u >= 0; u--) {
+            if (this.undoAdded[u]) {
+                this.remove(this.undoKeys[u]);
+            } else {
+                this.insert(this.undoKeys[u]);
+            }
+        }
+        this.undoCount = 0;
+    }
+
+    private int goalDistance() {
+        int distance = 0;
+        for (long key : this.goalPositive) {
+            if (!this.atoms.contains(key)) {
+                distance++;
+            }
+        }
+        for (long key : this.goalNegative) {
+            if (this.atoms.contains(key)) {
+                distance++;
+            }
+        }
+        return distance;
+    }
+
+    private boolean insert(long key) {
+        if (!this.atoms.add(key)) {
+            return false;
+        }
+        int predicate = this.predicateOf(key);
+        this.byPredicate.get(predicate).add(key);
+        for (int k = 0; k < this.arity(predicate); k++) {
+            int index = this.argumentIndex(predicate, k, this.argument(key, k));
+            Set<Long> indexed = this.byArgument.get(index);
+            if (indexed == null) {
+                indexed = new LinkedHashSet<>();
+                this.byArgument.set(index, indexed);
+            }
+            indexed.add(key);
+        }
+        return true;
+    }
+
+    private boolean remove(long key) {
+        if (!this.atoms.remove(key)) {
+            return false;
+        }
+        int predicate = this.predicateOf(key);
+        this.byPredicate.get(predicate).remove(key);
+        for (int k = 0; k < this.arity(predicate); k++) {
+            this.byArgument.get(this.argumentIndex(predicate, k, this.argument(key, k))).remove(key);
+        }
+        return true;
+    }
+
+    private int value(int term, int[] binding) {
+        return term < 0 ? -term - 1 : binding[term];
+    }
+
+    private long key(Atom atom, int[] binding) {
+        long key = atom.predicate;
+        for (int k = 0; k < atom.terms.length; k++) {
+            key += this.power[k] * this.value(atom.terms[k], binding);
+        }
+        return key;
+    }
+
+    private int predicateOf(long key) {
+        return (int) (key % this.power[0]);
+    }
+
+    private int argument(long key, int k) {
+        return (int) ((key / this.power[k]) % this.objects.size());
+    }
+
+    private int arity(int predicate) {
+        return this.predicateOffset[predicate + 1] - this.predicateOffset[predicate];
+    }
+
+    private int argumentIndex(int predicate, int k, int object) {
+        return (this.predicateOffset[predicate] + k) * this.objects.size() + object;
+    }
+
+    private static List<String> values(List<Symbol<String>> symbols) {
+        List<String> values = new ArrayList<>(symbols.size());
+        for (Symbol<String> symbol : symbols) {
+            values.add(symbol.getValue());
+        }
+        return values;
+    }
+
+    private static long[] toArray(List<Long> list) {
+        long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Traduction des expressions analysées en schémas et en atomes codés.
+     */
+    private static final class Compiler {
+
+        private final Map<String, Integer> objectIndex;
+        private final Map<String, Integer> predicateIndex;
+        private final long[] power;
+
+        private Compiler(Map<String, Integer> objectIndex, Map<String, Integer> predicateIndex, long[] power) {
+            this.objectIndex = objectIndex;
+            this.predicateIndex = predicateIndex;
+            this.power = power;
+        }
+
+        private Schema schema(ParsedAction action, int nbObjects, List<Set<String>> objectTypes) {
+            List<TypedSymbol<String>> parameters = action.getParameters();
+            Map<String, Integer> parameterIndex = new HashMap<>();
+            boolean[][] accepts = new boolean[parameters.size()][nbObjects];
+            int[][] domain = new int[parameters.size()][];
+            for (int k = 0; k < parameters.size(); k++) {
+                parameterIndex.put(parameters.get(k).getValue(), k);
+                List<String> types = values(parameters.get(k).getTypes());
+                List<Integer> accepted = new ArrayList<>();
+                for (int o = 0; o < nbObjects; o++) {
+                    accepts[k][o] = types.isEmpty();
+                    for (String type : types) {
+                        accepts[k][o] |= objectTypes.get(o).contains(type);
+                    }
+                    if (accepts[k][o]) {
+                        accepted.add(o);
+                    }
+                }
+                domain[k] = accepted.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            List<Atom> positive = new ArrayList<>();
+            List<Atom> negative = new ArrayList<>();
+            List<int[]> equal = new ArrayList<>();
+            List<int[]> different = new ArrayList<>();
+            this.literals(action.getPreconditions(), true, parameterIndex, positive, negative, equal, different);
+            List<Atom> add = new ArrayList<>();
+            List<Atom> delete = new ArrayList<>();
+            this.literals(action.getEffects(), true, parameterIndex, add, delete, null, null);
+
+            return new Schema(action.getName().getValue(), parameters.size(), accepts, domain,
+                    order(positive, parameters.size()).toArray(new Atom[0]), negative.toArray(new Atom[0]),
+                    equal.toArray(new int[0][]), different.toArray(new int[0][]), add.toArray(new Atom[0]),
+                    delete.toArray(new Atom[0]));
+        }
+
+        /**
+         * Range une conjonction de littéraux. Les égalités ne sont acceptées
+         * que si les listes correspondantes sont fournies (préconditions).
+         */
+        private void literals(Expression<String> exp, boolean sign, Map<String, Integer> parameterIndex,
+                List<Atom> positive, List<Atom> negative, List<int[]> equal, List<int[]> different) {
+            if (exp == null) {
+                return;
+            }
+            switch (exp.getConnector()) {
+                case AND:
+                    if (!sign) {
+                        break;
+                    }
+                    for (Expression<String> child : exp.getChildren()) {
+                        this.literals(child, true, parameterIndex, positive, negative, equal, different);
+                    }
+                    return;
+                case TRUE:
+                    if (sign) {
+                        return;
+                    }
+                    break;
+                case NOT:
+                    if (sign) {
+                        this.literals(exp.getChildren().get(0), false, parameterIndex, positive, negative, equal,
+                                different);
+                        return;
+                    }
+                    break;
+                case ATOM:
+                    (sign ? positive : negative).add(this.atom(exp, parameterIndex));
+                    return;
+                case EQUAL_ATOM:
+                    if (equal == null) {
+                        break;
+                    }
+                    (sign ? equal : different).add(new int[] {
+                        this.term(exp.getArguments().get(0), parameterIndex),
+                        this.term(exp.getArguments().get(1), parameterIndex) });
+                    return;
+                default:
+                    break;
+            }
+            throw new IllegalArgumentException("Lifted walks only support conjunctions of literals: " + exp);
+        }
+
+        private void goal(Expression<String> exp, List<Long> positive, List<Long> negative) {
+            List<Atom> positiveAtoms = new ArrayList<>();
+            List<Atom> negativeAtoms = new ArrayList<>();
+            this.literals(exp, true, Map.of(), positiveAtoms, negativeAtoms, null, null);
+            for (Atom atom : positiveAtoms) {
+                positive.add(this.groundKey(atom));
+            }
+            for (Atom atom : negativeAtoms) {
+                negative.add(this.groundKey(atom));
+            }
+        }
+
+        private long groundKey(Expression<String> fact) {
+            return this.groundKey(this.atom(fact, Map.of()));
+        }
+
+        private long groundKey(Atom atom) {
+            long key = atom.predicate;
+            for (int k = 0; k < atom.terms.length; k++) {
+                key += this.power[k] * (-atom.terms[k] - 1);
+            }
+            return key;
+        }
+
+        private Atom atom(Expression<String> exp, Map<String, Integer> parameterIndex) {
+            Integer predicate = this.predicateIndex.get(exp.getSymbol().getValue());
+            if (predicate == null) {
+                throw new IllegalArgumentException("Unknown predicate " + exp.getSymbol().getValue());
+            }
+            int[] terms = new int[exp.getArguments().size()];
+            for (int k = 0; k < terms.length; k++) {
+                terms[k] = this.term(exp.getArguments().get(k), parameterIndex);
+            }
+            return new Atom(predicate, terms);
+        }
+
+        private int term(Symbol<String> symbol, Map<String, Integer> parameterIndex) {
+            if (symbol.getType() == SymbolType.VARIABLE) {
+                Integer parameter = parameterIndex.get(symbol.getValue());
+                if (parameter == null) {
+                    throw new IllegalArgumentException("Unbound variable " + symbol.getValue());
+                }
+                return parameter;
+            }
+            Integer object = this.objectIndex.get(symbol.getValue());
+            if (object == null) {
+                throw new IllegalArgumentException("Unknown object " + symbol.getValue());
+            }
+            return -object - 1;
+        }
+
+        /**
+         * Ordonne les atomes positifs pour la jointure : à chaque rang, l'atome
+         * qui a le plus de termes déjà liés (constantes comprises), puis le
+         * moins de paramètres nouveaux.
+         */
+        private static List<Atom> order(List<Atom> atoms, int arity) {
+            List<Atom> remaining = new ArrayList<>(atoms);
+            List<Atom> ordered = new ArrayList<>(atoms.size());
+            boolean[] bound = new boolean[arity];
+            while (!remaining.isEmpty()) {
+                Atom best = null;
+                int bestBound = -1;
+                int bestFree = Integer.MAX_VALUE;
+                for (Atom atom : remaining) {
+                    int nbBound = 0;
+                    int nbFree = 0;
+                    for (int term : atom.terms) {
+                        if (term < 0 || bound[term]) {
+                            nbBound++;
+                        } else {
+                            nbFree++;
+                        }
+                    }
+                    if (nbBound > bestBound || nbBound == bestBound && nbFree < bestFree) {
+                        best = atom;
+                        bestBound = nbBound;
+                        bestFree = nbFree;
+                    }
+                }
+                remaining.remove(best);
+                ordered.add(best);
+                for (int term : best.terms) {
+                    if (term >= 0) {
+                        bound[term] = true;
+                    }
+                }
+            }
+            return ordered;
+        }
+    }
+}
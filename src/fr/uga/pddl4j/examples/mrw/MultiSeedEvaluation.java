@@ -0,0 +1,194 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.LogLevel;
+import fr.uga.pddl4j.problem.Problem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+
+/**
+ * Évaluation statistique des planners sur plusieurs graines.
+ * <p>
+ * Contrairement à <code>ScriptEvaluation</code>, qui lance chaque planner une
+ * seule fois par problème, chaque couple (planner, problème) est exécuté avec
+ * N graines dans la même JVM. Le problème est analysé et instancié une seule
+ * fois, puis seul <code>solve</code> est chronométré pour chaque graine. Le
+ * résumé de chaque domaine est écrit dans <code>&lt;domaine&gt;Summary.txt</code>
+ * (séparateur ";", une ligne d'en-tête, cellules vides quand aucune exécution
+ * n'a réussi), au même format que les fichiers lus par "graphs.ipynb".
+ * </p>
+ * <p>
+ * Colonnes : couverture (proportion d'exécutions réussies et son intervalle de
+ * Wilson à 95 %), puis médiane, p90 et p99 du temps de recherche (ms) et de la
+ * longueur des plans trouvés, avec un intervalle de confiance à 95 % de la
+ * médiane obtenu par les rangs de la loi binomiale (sans hypothèse sur la
+ * distribution). HSP étant déterministe, il n'est exécuté qu'une fois.
+ * </p>
+ */
+@CommandLine.Command(name = "MultiSeedEvaluation", description = "Runs the planners over several seeds and writes a statistical summary per domain.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+public class MultiSeedEvaluation implements Callable<Integer> {
+
+    /**
+     * Quantile de la loi normale pour un intervalle de confiance à 95 %.
+     */
+    private static final double Z = 1.96;
+
+    @CommandLine.Parameters(paramLabel = "<domain directory>", description = "The domain directories (domain.pddl and problem files).")
+    private List<File> directories;
+
+    @CommandLine.Option(names = { "-n",
+            "--seeds" }, defaultValue = "10", paramLabel = "<seeds>", description = "Set the number of seeds per planner and problem (preset 10).")
+    private int seeds;
+
+    @CommandLine.Option(names = {
+            "--first-seed" }, defaultValue = "0", paramLabel = "<seed>", description = "Set the first seed, the runs use first-seed .. first-seed + seeds - 1 (preset 0).")
+    private long firstSeed;
+
+    @CommandLine.Option(names = {
+            "--planners" }, split = ",", defaultValue = "MRW,IMPROVE", paramLabel = "<planner>", description = "Set the planners to evaluate among MRW, IMPROVE and HSP (preset MRW,IMPROVE).")
+    private List<String> planners;
+
+    @CommandLine.Option(names = { "-t",
+            "--timeout" }, defaultValue = "900", paramLabel = "<timeout>", description = "Set the timeout of each run in seconds, used by the planners that support it (preset 900).")
+    private int timeout;
+
+    /**
+     * Lance l'évaluation sur tous les dossiers de domaines.
+     *
+     * @return le code de sortie.
+     * @throws IOException si un fichier ne peut pas être lu ou écrit.
+     */
+    @Override
+    public Integer call() throws IOException {
+        for (File directory : this.directories) {
+            File[] files = directory.listFiles((dir, name) -> name.endsWith(".pddl") && !name.equals("domain.pddl"));
+            if (files == null) {
+                System.err.println("Not a domain directory: " + directory);
+                continue;
+            }
+            Arrays.sort(files);
+            String domain = new File(directory, "domain.pddl").getPath();
+            File summary = new File(directory.getName() + "Summary.txt");
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(summary, false))) {
+                writer.write("probleme;planner;seeds;solved;coverage;coverage_ci_low;coverage_ci_high"
+                        + ";temps_median;temps_p90;temps_p99;temps_ci_low;temps_ci_high"
+                        + ";length_median;length_p90;length_p99;length_ci_low;length_ci_high");
+                for (File file : files) {
+                    for (String name : this.planners) {
+                        writer.write("\n" + this.evaluate(name, domain, file));
+                        writer.flush();
+                    }
+                }
+            }
+            System.out.println("Summary written to " + summary);
+        }
+        return 0;
+    }
+
+    /**
+     * Exécute un planner sur un problème pour toutes les graines et retourne la
+     * ligne du résumé.
+     */
+    private String evaluate(String name, String domain, File file) throws IOException {
+        AbstractPlanner planner = Planners.newPlanner(name);
+        planner.setDomain(domain);
+        planner.setProblem(file.getPath());
+        planner.setTimeout(this.timeout);
+        planner.setLogLevel(LogLevel.OFF);
+        DefaultParsedProblem parsed = planner.parse();
+        Problem problem = parsed != null ? planner.instantiate(parsed) : null;
+
+        int runs = planner instanceof HSP ? 1 : this.seeds;
+        List<Double> times = new ArrayList<>();
+        List<Double> lengths = new ArrayList<>();
+        for (int i = 0; i < runs && problem != null; i++) {
+            long seed = this.firstSeed + i;
+            Planners.setSeed(planner, seed);
+            long begin = System.currentTimeMillis();
+            Plan plan = Planners.solve(planner, problem);
+            long time = System.currentTimeMillis() - begin;
+            if (plan != null) {
+                times.add((double) time);
+                lengths.add((double) plan.size());
+            }
+            System.out.printf(Locale.ROOT, "%s %s seed %d: %s%n", file.getName(), name, seed,
+                    plan != null ? plan.size() + " actions in " + time + " ms" : "no plan");
+        }
+
+        int solved = times.size();
+        double coverage = runs > 0 ? (double) solved / runs : 0;
+        double[] coverageInterval = wilson(solved, runs);
+        StringBuilder row = new StringBuilder();
+        row.append(file.getName()).append(';').append(name).append(';').append(runs).append(';').append(solved)
+                .append(';').append(Planners.format(coverage)).append(';')
+                .append(Planners.format(coverageInterval[0])).append(';')
+                .append(Planners.format(coverageInterval[1]));
+        appendStatistics(row, times);
+        appendStatistics(row, lengths);
+        return row.toString();
+    }
+
+    /**
+     * Ajoute médiane, p90, p99 et l'intervalle de confiance de la médiane, ou
+     * des cellules vides si la liste est vide.
+     */
+    private static void appendStatistics(StringBuilder row, List<Double> values) {
+        if (values.isEmpty()) {
+            row.append(";;;;;");
+            return;
+        }
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        int n = sorted.length;
+        // Rangs de l'intervalle de confiance de la médiane : n/2 -+ z*sqrt(n)/2
+        int low = (int) Math.floor(n / 2.0 - Z * Math.sqrt(n) / 2.0);
+        int high = (int) Math.ceil(n / 2.0 + Z * Math.sqrt(n) / 2.0);
+        row.append(';').append(Planners.format(percentile(sorted, 50))).append(';')
+                .append(Planners.format(percentile(sorted, 90))).append(';')
+                .append(Planners.format(percentile(sorted, 99))).append(';')
+                .append(Planners.format(sorted[Math.max(0, low - 1)])).append(';')
+                .append(Planners.format(sorted[Math.min(n - 1, high - 1)]));
+    }
+
+    /**
+     * Percentile au rang le plus proche sur des valeurs triées.
+     */
+    private static double percentile(double[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Intervalle de Wilson à 95 % d'une proportion.
+     */
+    private static double[] wilson(int successes, int trials) {
+        if (trials == 0) {
+            return new double[] { 0, 0 };
+        }
+        double p = (double) successes / trials;
+        double denominator = 1 + Z * Z / trials;
+        double center = (p + Z * Z / (2.0 * trials)) / denominator;
+        double margin = Z * Math.sqrt(p * (1 - p) / trials + Z * Z / (4.0 * trials * trials)) / denominator;
+        return new double[] { Math.max(0, center - margin), Math.min(1, center + margin) };
+    }
+
+    /**
+     * The main method of the evaluation.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new MultiSeedEvaluation()).execute(args));
+    }
+}
@@ -6,12 +6,13 @@ import fr.uga.pddl4j.parser.RequireKey;
 import fr.uga.pddl4j.plan.Plan;
 import fr.uga.pddl4j.plan.SequentialPlan;
 import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.InvalidConfigurationException;
 import fr.uga.pddl4j.planners.SearchStrategy;
+import fr.uga.pddl4j.planners.Statistics;
 import fr.uga.pddl4j.planners.statespace.search.StateSpaceSearch;
 import fr.uga.pddl4j.problem.DefaultProblem;
 import fr.uga.pddl4j.problem.Problem;
 import fr.uga.pddl4j.problem.operator.Condition;
-import fr.uga.pddl4j.util.BitVector;
 import fr.uga.pddl4j.problem.State;
 import fr.uga.pddl4j.problem.operator.Action;
 
@@ -20,10 +21,10 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openjdk.jol.info.GraphLayout;
 import picocli.CommandLine;
 
 /**
@@ -42,6 +43,17 @@ public class MyPlanner extends AbstractPlanner {
     private StateHeuristic.Name heuristic;
     private String timeFile;
     private String lengthFile;
+    private boolean useLandmarks;
+    private double landmarkBias;
+    private boolean pruneActions;
+    private String progressFile;
+    private long progressInterval;
+    private Long seed;
+    private boolean useSymmetry;
+    private boolean bidirectional;
+    private int regressionWalks;
+    private boolean lifted;
+    private int walkCount;
 
     /**
      * The class logger.
@@ -65,41 +77,176 @@ public class MyPlanner extends AbstractPlanner {
      */
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
+        PlannerEvents.Phase event = new PlannerEvents.Phase("MRW", "instantiate");
+        event.begin();
         final Problem pb = new DefaultProblem(problem);
         pb.instantiate();
+        event.parseMillis = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
     /**
-     * Évalue l'état actuel par rapport à l'objectif et retourne un score
-     * heuristique.
-     * 
-     * @param currentState L'état à évaluer.
-     * @param goal         L'objectif à atteindre.
-     * @return Un score heuristique (plus il est bas, plus l'état est proche de
-     *         l'objectif).
+     * Solves the planning problem of the domain and problem files. In lifted mode
+     * the problem is only parsed: the walks run on the action schemas and only the
+     * actions of the plan are grounded.
+     *
+     * @return the plan found or null if no plan was found.
+     * @throws InvalidConfigurationException if the planner configuration is not
+     *                                       valid.
      */
-    private double evaluateHeuristic(State currentState, Condition goal) {
-        double heuristicValue = 0.0;
-
-        // Vérifie les fluents positifs de l'objectif
-        BitVector goalPositiveFluents = goal.getPositiveFluents();
-        for (int i = 0; i < goalPositiveFluents.size(); i++) {
-            if (goalPositiveFluents.get(i) && !currentState.get(i)) {
-                heuristicValue += 1.0; // Incrémente le score pour chaque fluent positif non satisfait
-            }
+    @Override
+    public Plan solve() throws InvalidConfigurationException {
+        if (!this.lifted) {
+            return super.solve();
+        }
+        if (!this.hasValidConfiguration()) {
+            this.throwInvalidConfigurationException();
+        }
+        // Ces options portent sur les actions instanciées, absentes en mode lifted
+        if (this.useLandmarks || this.useSymmetry || this.bidirectional || this.pruneActions) {
+            throw new InvalidConfigurationException(
+                    "--lifted cannot be combined with --landmarks, --symmetry, --bidirectional or --prune");
+        }
+        long begin = System.currentTimeMillis();
+        final DefaultParsedProblem parsedProblem;
+        try {
+            parsedProblem = this.parse();
+        } catch (IOException e) {
+            LOGGER.fatal(e.getMessage());
+            return null;
+        }
+        this.getStatistics().setTimeToParse(System.currentTimeMillis() - begin);
+        if (!this.getParserErrorManager().isEmpty()) {
+            this.getParserErrorManager().printAll();
+            return null;
         }
 
-        // Vérifie les fluents négatifs de l'objectif
-        BitVector goalNegativeFluents = goal.getNegativeFluents();
-        for (int i = 0; i < goalNegativeFluents.size(); i++) {
-            if (goalNegativeFluents.get(i) && currentState.get(i)) {
-                heuristicValue += 1.0; // Incrémente le score si un fluent négatif est présent dans l'état actuel
+        PlannerEvents.Phase event = new PlannerEvents.Phase("MRW", "compile-lifted");
+        event.begin();
+        begin = System.currentTimeMillis();
+        final LiftedWalk engine = LiftedWalk.compile(parsedProblem);
+        this.getStatistics().setTimeToEncode(System.currentTimeMillis() - begin);
+        this.getStatistics().setMemoryUsedForProblemRepresentation(GraphLayout.parseInstance(engine).totalSize());
+        event.parseMillis = this.getStatistics().getTimeToParse();
+        event.actions = engine.getSchemaCount();
+        event.commit();
+        LOGGER.info("* Lifted walks over {} action schemas, {} objects and {} initial atoms (no grounding)\n",
+                engine.getSchemaCount(), engine.getObjectCount(), engine.getInitialAtomCount());
+
+        try (Progress progress = Progress.open(this.progressFile, this.progressInterval, "MRW")) {
+            event = new PlannerEvents.Phase("MRW", "search");
+            event.begin();
+            begin = System.currentTimeMillis();
+            Plan plan = this.searchLifted(engine, progress);
+            this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+            event.actions = engine.getGroundedCount();
+            event.planLength = plan != null ? plan.size() : -1;
+            event.commit();
+            StringBuilder str = new StringBuilder();
+            if (plan != null) {
+                progress.event("plan", "length", plan.size());
+                str.append(String.format("%nfound plan as follows:%n%n"));
+                for (int k = 0; k < plan.size(); k++) {
+                    str.append(String.format("%02d: %s%n", k, engine.toString(plan.actions().get(k))));
+                }
+            } else {
+                progress.event("failure");
+                str.append(String.format("%nno plan found%n%n"));
             }
+            str.append(String.format("%ntime spent:   %8.2f seconds parsing %n",
+                    Statistics.millisecondToSecond(this.getStatistics().getTimeToParse())));
+            str.append(String.format("              %8.2f seconds encoding %n",
+                    Statistics.millisecondToSecond(this.getStatistics().getTimeToEncode())));
+            str.append(String.format("              %8.2f seconds searching%n",
+                    Statistics.millisecondToSecond(this.getStatistics().getTimeToSearch())));
+            str.append(String.format("%nmemory used:  %8.2f MBytes for problem representation%n%n",
+                    Statistics.byteToMByte(this.getStatistics().getMemoryUsedForProblemRepresentation())));
+            LOGGER.info(str);
+            return plan;
         }
+    }
 
-        // Retourne le score heuristique
-        return heuristicValue;
+    /**
+     * Boucle des marches aléatoires sur les schémas d'actions. Le nombre
+     * d'actions instanciées n'étant pas connu, les marches s'arrêtent au délai
+     * du planner ; leur longueur est estimée avec le nombre d'atomes permis par
+     * les types à la place du nombre de fluents.
+     *
+     * @param engine   le moteur de marches non instancié.
+     * @param progress le flux d'événements de progression.
+     * @return le plan trouvé ou null.
+     */
+    private Plan searchLifted(final LiftedWalk engine, final Progress progress) {
+        final long deadline = System.currentTimeMillis() + 1000L * this.getTimeout();
+        final int maxLengthWalk = (int) Math.min(100, 2 * engine.getAtomBound());
+        final long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
+        LiftedWalk.Result best = null;
+        long totalSteps = 0;
+        int deadEndWalks = 0;
+        int walks = 0;
+        PlannerEvents.WalkBatch batch = new PlannerEvents.WalkBatch("MRW");
+        batch.begin();
+
+        LOGGER.info("* Starting lifted Pure Random Walk search (MRW)\n");
+
+        while (System.currentTimeMillis() < deadline) {
+            LiftedWalk.Result walk = engine.walk(maxLengthWalk, RandomWalk.stream(searchSeed, walks));
+            walks++;
+            this.walkCount = walks;
+            totalSteps += walk.steps.size();
+            if (walk.deadEnd) {
+                deadEndWalks++;
+            }
+            batch.walks++;
+            batch.steps += walk.steps.size();
+            batch.deadEnds += walk.deadEnd ? 1 : 0;
+            if (progress.isDue()) {
+                progress.progress("walks", walks, "steps", totalSteps,
+                        "steps_per_s", totalSteps * 1000.0 / Math.max(1, progress.elapsedMillis()),
+                        "dead_end_ratio", (double) deadEndWalks / walks,
+                        "best_h", best != null ? best.goalDistance : Double.MAX_VALUE);
+            }
+            if (walk.goalReached) {
+                batch.goalReached = true;
+                batch.bestHeuristic = 0;
+                batch.commit();
+                // Les actions instanciées n'ont ni précondition ni effet : le plan
+                // est vérifié sur les schémas compilés avant d'être retourné
+                if (!engine.validate(walk.steps)) {
+                    LOGGER.error("* A lifted random walk reached the goal but its plan does not replay\n");
+                    this.writeResults(null);
+                    return null;
+                }
+                Plan plan = new SequentialPlan();
+                for (int k = 0; k < walk.steps.size(); k++) {
+                    plan.add(k, engine.ground(walk.steps.get(k)));
+                }
+                LOGGER.info("* Solution found during a lifted random walk ({} walks, {} actions grounded)\n",
+                        walks, engine.getGroundedCount());
+                this.writeResults(plan);
+                return plan;
+            }
+            if (best == null || walk.goalDistance < best.goalDistance) {
+                best = walk;
+            }
+            if (batch.walks == PlannerEvents.WALK_BATCH) {
+                batch.bestHeuristic = best.goalDistance;
+                batch.commit();
+                batch = new PlannerEvents.WalkBatch("MRW");
+                batch.begin();
+            }
+        }
+        if (batch.walks > 0) {
+            batch.bestHeuristic = best.goalDistance;
+            batch.commit();
+        }
+        this.writeResults(null);
+        LOGGER.info("* Lifted Pure Random Walk search failed to find a solution before the timeout"
+                + " ({} walks, best heuristic value {})\n", walks, best != null ? best.goalDistance : -1);
+        return null;
     }
 
     /**
@@ -110,90 +257,151 @@ public class MyPlanner extends AbstractPlanner {
      */
     @Override
     public Plan solve(final Problem problem) {
+        try (Progress progress = Progress.open(this.progressFile, this.progressInterval, "MRW")) {
+            PlannerEvents.Phase event = new PlannerEvents.Phase("MRW", "search");
+            event.begin();
+            Plan plan = this.search(problem, progress);
+            event.actions = problem.getActions().size();
+            event.fluents = problem.getFluents().size();
+            event.planLength = plan != null ? plan.size() : -1;
+            event.commit();
+            if (plan != null) {
+                progress.event("plan", "length", plan.size());
+            } else {
+                progress.event("failure");
+            }
+            return plan;
+        }
+    }
+
+    /**
+     * Boucle des marches aléatoires de MRW.
+     *
+     * @param problem  le problème à résoudre.
+     * @param progress le flux d'événements de progression.
+     * @return le plan trouvé ou null.
+     */
+    private Plan search(final Problem problem, final Progress progress) {
+        this.walkCount = 0;
         // Créez une instance de plan
         Plan plan = new SequentialPlan(); // Remplacez par votre implémentation de l'interface Plan
         List<Action> bestActionSequence = new ArrayList<>();
         State initialState = new State(problem.getInitialState());
         Condition goal = problem.getGoal();
-        int numWalks = 100 * problem.getActions().size(); // Nombre maximum de marches aléatoires (comme les problèmes
-                                                          // varie j'ai décidé changés sa valeur en fonction du nombre
-                                                          // d'action possible)
+        List<Action> actions = this.pruneActions ? ActionPruning.prune(problem) : problem.getActions();
+        int numWalks = 100 * actions.size(); // Nombre maximum de marches aléatoires (comme les problèmes
+                                             // varie j'ai décidé changés sa valeur en fonction du nombre
+                                             // d'action possible, après l'élagage éventuel)
         int maxLengthWalk = Math.min(100, 2 * problem.getFluents().size()); // Longueur maximale d'une marche aléatoire
                                                              // (estimé en fonction du nombre de fluents du problème)
-        Random random = new Random();
+        long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
         double bestHeuristicValue = Double.MAX_VALUE;
+        long totalSteps = 0;
+        int deadEndWalks = 0;
+        PlannerEvents.WalkBatch batch = new PlannerEvents.WalkBatch("MRW");
+        batch.begin();
+
+        // Guidage optionnel des marches par les landmarks du problème
+        RandomWalk.Guide guide = RandomWalk.UNIFORM;
+        Landmarks.Counter landmarkCounter = null;
+        if (this.useLandmarks) {
+            Landmarks landmarks = Landmarks.extract(problem);
+            LOGGER.info("* {} landmarks extracted\n", landmarks.size());
+            landmarkCounter = landmarks.newCounter(this.landmarkBias);
+            guide = landmarkCounter;
+        }
+        if (this.useSymmetry) {
+            Symmetry symmetry = Symmetry.detect(problem);
+            LOGGER.info("* {} classes of interchangeable objects {}\n", symmetry.getClassCount(),
+                    symmetry.describe(problem));
+            guide = symmetry.guide(guide);
+        }
+
+        // Marches de régression depuis le but : les marches en avant s'arrêtent
+        // dès qu'elles atteignent l'un des états partiels obtenus
+        Regression.Meeting meeting = null;
+        if (this.bidirectional) {
+            Regression regression = Regression.build(problem, actions, this.regressionWalks, maxLengthWalk / 2,
+                    RandomWalk.stream(searchSeed, -1));
+            LOGGER.info("* {} partial states regressed from the goal\n", regression.size());
+            List<Action> suffix = regression.find(initialState);
+            if (suffix != null) {
+                LOGGER.info("* The initial state satisfies a regressed partial state\n");
+                for (int k = 0; k < suffix.size(); k++) {
+                    plan.add(k, suffix.get(k));
+                }
+                this.writeResults(plan);
+                return plan;
+            }
+            meeting = regression.guide(guide, initialState);
+            guide = meeting;
+        }
 
         LOGGER.info("* Starting Pure Random Walk search (MRW)\n");
 
         for (int i = 0; i < numWalks; i++) {
-            State currentState = new State(initialState);
-            List<Action> currentActionSequence = new ArrayList<>();
-
             // Effectuer une marche aléatoire
-            for (int j = 0; j < maxLengthWalk; j++) {
-                List<Action> actions = problem.getActions(); // Obtenir toutes les actions disponibles
-                List<Action> applicableActions = new ArrayList<>();
-
-                // Filtrer les actions applicables dans l'état actuel
-                for (Action action : actions) {
-                    if (action.isApplicable(currentState)) {
-                        applicableActions.add(action);
-                    }
-                }
+            // Générateur propre à la marche i : la même graine rejoue les mêmes marches
+            RandomWalk.Result walk = RandomWalk.walk(actions, initialState, goal, maxLengthWalk,
+                    RandomWalk.stream(searchSeed, i), guide);
+            this.walkCount++;
+            State currentState = walk.state;
+            List<Action> currentActionSequence = walk.actions;
+            totalSteps += currentActionSequence.size();
+            if (walk.deadEnd) {
+                deadEndWalks++;
+            }
+            batch.walks++;
+            batch.steps += currentActionSequence.size();
+            batch.applicableActions += walk.applicableCount;
+            batch.deadEnds += walk.deadEnd ? 1 : 0;
+            batch.goalReached = walk.goalReached;
+            if (progress.isDue()) {
+                progress.progress("walks", i + 1, "steps", totalSteps,
+                        "steps_per_s", totalSteps * 1000.0 / Math.max(1, progress.elapsedMillis()),
+                        "dead_end_ratio", (double) deadEndWalks / (i + 1), "best_h", bestHeuristicValue);
+            }
 
-                // Arrêter la marche si aucune action n'est applicable
-                if (applicableActions.isEmpty()) {
-                    break;
+            // Si l'objectif est atteint pendant la marche, ou si la marche a rejoint un
+            // état partiel régressé, arrêter et retourner le plan
+            List<Action> solution = walk.goalReached ? currentActionSequence
+                    : meeting != null ? meeting.join(currentActionSequence) : null;
+            if (solution != null) {
+                batch.bestHeuristic = 0;
+                batch.goalReached = true;
+                batch.commit();
+                LOGGER.info(walk.goalReached ? "* Solution found during a random walk\n"
+                        : "* A random walk met a partial state regressed from the goal\n");
+                for (int k = 0; k < solution.size(); k++) {
+                    plan.add(k, solution.get(k));
                 }
 
-                // Sélection d'une action aléatoire parmi les actions applicables
-                Action randomAction = applicableActions.get(random.nextInt(applicableActions.size()));
-                currentState.apply(randomAction.getUnconditionalEffect()); // Appliquer l'effet de l'action
-                currentActionSequence.add(randomAction);
-
-                // Si l'objectif est atteint pendant la marche, arrêter et retourner le plan
-                if (currentState.satisfy(goal)) {
-                    LOGGER.info("* Solution found during a random walk\n");
-                    for (int k = 0; k < currentActionSequence.size(); k++) {
-                        plan.add(k, currentActionSequence.get(k));
-                    }
-
-                    if(timeFile != null && lengthFile != null) {
-                        StringBuilder rawTime = new StringBuilder();
-                        StringBuilder rawLength = new StringBuilder();
-
-                        String timeString = String.valueOf(this.getStatistics().getTimeToSearch()
-                                + this.getStatistics().getTimeToEncode() + this.getStatistics().getTimeToParse());
-
-                        rawTime.append(";" + timeString);
-                        rawLength.append(";" + plan.actions().size());
-
-                        // ecrire les résultats dans le fichier
-                        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
-                            writer.write(rawTime.toString());
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-
-                        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
-                            writer.write(rawLength.toString());
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    }
-
-                    return plan;
-                }
+                this.writeResults(plan);
+
+                return plan;
             }
 
             // Évaluation de l'état final de la marche
-            double heuristicValue = evaluateHeuristic(currentState, goal); // Fonction heuristique
+            double heuristicValue = landmarkCounter != null ? landmarkCounter.value(currentState)
+                    : RandomWalk.evaluateHeuristic(currentState, goal); // Fonction heuristique
 
             // Si l'état final a une meilleure valeur heuristique, le sauvegarder
             if (heuristicValue < bestHeuristicValue && !currentState.satisfy(goal)) {
                 bestHeuristicValue = heuristicValue;
                 bestActionSequence = new ArrayList<>(currentActionSequence);
             }
+
+            if (batch.walks == PlannerEvents.WALK_BATCH) {
+                batch.bestHeuristic = bestHeuristicValue;
+                batch.commit();
+                batch = new PlannerEvents.WalkBatch("MRW");
+                batch.begin();
+            }
+        }
+
+        if (batch.walks > 0) {
+            batch.bestHeuristic = bestHeuristicValue;
+            batch.commit();
         }
 
         // Vérifier si une séquence d'actions valide a été trouvée
@@ -203,49 +411,52 @@ public class MyPlanner extends AbstractPlanner {
                 plan.add(i, bestActionSequence.get(i));
             }
 
-            if(timeFile != null && lengthFile != null) {
-                StringBuilder rawTime = new StringBuilder();
-                StringBuilder rawLength = new StringBuilder();
-
-                String timeString = String.valueOf(this.getStatistics().getTimeToSearch()
-                        + this.getStatistics().getTimeToEncode() + this.getStatistics().getTimeToParse());
-
-                rawTime.append(";" + timeString);
-                rawLength.append(";" + plan.actions().size());
-
-                // ecrire les résultats dans le fichier
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
-                    writer.write(rawTime.toString());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
-                    writer.write(rawLength.toString());
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+            this.writeResults(plan);
 
             return plan;
         } else {
-            if(timeFile !=null && lengthFile != null) {
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
-                    writer.write(";");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
-                    writer.write(";");
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-            LOGGER.info("* Pure Random Walk search failed to find a solution within the walk limit\n");
+            this.writeResults(null);
+            LOGGER.info("* Pure Random Walk search failed to find a solution within the walk limit"
+                    + " (best heuristic value {})\n", bestHeuristicValue);
             return null;
         }
     }
 
+    /**
+     * Ajoute le temps et la longueur du plan, ou des cellules vides si aucun plan
+     * n'a été trouvé, aux fichiers de résultats de <code>ScriptEvaluation</code>.
+     *
+     * @param plan le plan trouvé ou null.
+     */
+    private void writeResults(Plan plan) {
+        if (timeFile == null || lengthFile == null) {
+            return;
+        }
+        PlannerEvents.Phase event = new PlannerEvents.Phase("MRW", "write-results");
+        event.begin();
+        String rawTime = ";";
+        String rawLength = ";";
+        if (plan != null) {
+            rawTime += this.getStatistics().getTimeToSearch() + this.getStatistics().getTimeToEncode()
+                    + this.getStatistics().getTimeToParse();
+            rawLength += plan.actions().size();
+            event.planLength = plan.size();
+        }
+
+        // ecrire les résultats dans le fichier
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.timeFile, true))) {
+            writer.write(rawTime);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.lengthFile, true))) {
+            writer.write(rawLength);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        event.commit();
+    }
+
     /**
      * Returns if a specified problem is supported by the planner. Just ADL problem
      * can be solved by this planner.
@@ -273,20 +484,27 @@ public class MyPlanner extends AbstractPlanner {
     }
 
     /**
-     * The main method of the <code>ASP</code> planner.
+     * The main method of the <code>ASP</code> planner. The positional arguments
+     * are the domain and the problem, optionally followed by the time and length
+     * result files used by <code>ScriptEvaluation</code>; the planner options
+     * may appear anywhere.
      *
      * @param args the arguments of the command line.
      */
     public static void main(String[] args) {
         try {
             final MyPlanner planner = new MyPlanner();
-            if(args.length == 4) {
-                planner.setTimeFile(args[2]);
-                planner.setLengthFile(args[3]);
-            }
             planner.setTimeout(900);
             CommandLine cmd = new CommandLine(planner);
-            cmd.execute(new String[] { args[0], args[1] });
+            List<String> arguments = new ArrayList<>(List.of(args));
+            List<Integer> positionals = Planners.positionals(cmd, args);
+            if (positionals.size() == 4) {
+                planner.setTimeFile(args[positionals.get(2)]);
+                planner.setLengthFile(args[positionals.get(3)]);
+                arguments.remove((int) positionals.get(3));
+                arguments.remove((int) positionals.get(2));
+            }
+            cmd.execute(arguments.toArray(new String[0]));
         } catch (IllegalArgumentException e) {
             LOGGER.fatal(e.getMessage());
         }
@@ -303,6 +521,15 @@ public class MyPlanner extends AbstractPlanner {
         return this.heuristic;
     }
 
+    /**
+     * Returns the number of random walks started by the last search.
+     *
+     * @return the number of walks of the last search.
+     */
+    public final int getWalkCount() {
+        return this.walkCount;
+    }
+
     /**
      * Returns the weight of the heuristic.
      *
@@ -339,4 +566,137 @@ public class MyPlanner extends AbstractPlanner {
     public void setHeuristic(StateHeuristic.Name heuristic) {
         this.heuristic = heuristic;
     }
+
+    /**
+     * Enables the landmark guidance of the walks.
+     *
+     * @param useLandmarks <code>true</code> to guide the walks with landmarks.
+     */
+    @CommandLine.Option(names = {
+            "--landmarks" }, description = "Score walk endpoints with a landmark count and bias walks toward new landmarks.")
+    public void setUseLandmarks(final boolean useLandmarks) {
+        this.useLandmarks = useLandmarks;
+    }
+
+    /**
+     * Sets the probability of choosing an action that reaches a new landmark
+     * when one is applicable.
+     *
+     * @param landmarkBias the probability, between 0 and 1.
+     * @throws IllegalArgumentException if the probability is not between 0 and 1.
+     */
+    @CommandLine.Option(names = {
+            "--landmark-bias" }, defaultValue = "0.5", paramLabel = "<p>", description = "Set the probability of preferring landmark actions (preset 0.5).")
+    public void setLandmarkBias(final double landmarkBias) {
+        if (landmarkBias < 0 || landmarkBias > 1) {
+            throw new IllegalArgumentException("Landmark bias not in [0, 1]");
+        }
+        this.landmarkBias = landmarkBias;
+    }
+
+    /**
+     * Enables the goal-relevance pruning of the actions before the search.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the search.")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+
+    /**
+     * Writes progress events as JSON Lines to a file, or to the standard output
+     * with "-".
+     *
+     * @param progressFile the progress file.
+     */
+    @CommandLine.Option(names = {
+            "--progress" }, paramLabel = "<file|->", description = "Write JSON Lines progress events to a file or to the standard output (-).")
+    public void setProgressFile(final String progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    /**
+     * Sets the interval between two periodic progress events.
+     *
+     * @param progressInterval the interval in milliseconds.
+     * @throws IllegalArgumentException if the interval is not strictly positive.
+     */
+    @CommandLine.Option(names = {
+            "--progress-interval" }, defaultValue = "1000", paramLabel = "<ms>", description = "Set the interval between two progress events in milliseconds (preset 1000).")
+    public void setProgressInterval(final long progressInterval) {
+        if (progressInterval <= 0) {
+            throw new IllegalArgumentException("Progress interval <= 0");
+        }
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Sets the seed of the random walks. Each walk draws from its own stream derived
+     * from the seed and the walk index. Without seed, a random seed is drawn and
+     * logged so that the run can be replayed.
+     *
+     * @param seed the seed of the random walks.
+     */
+    @CommandLine.Option(names = {
+            "--seed" }, paramLabel = "<seed>", description = "Set the seed of the random walks (preset: none, a random seed is drawn and logged).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Groups the applicable actions of each step into orbits of interchangeable
+     * objects and draws an orbit before drawing an action.
+     *
+     * @param useSymmetry <code>true</code> to sample the actions by orbit.
+     */
+    @CommandLine.Option(names = {
+            "--symmetry" }, description = "Sample the actions of the walks by orbit of interchangeable objects.")
+    public void setUseSymmetry(final boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+    }
+
+    /**
+     * Enables the bidirectional walks: random walks regressed from the goal
+     * build partial states that stop the forward walks.
+     *
+     * @param bidirectional <code>true</code> to meet regressed partial states.
+     */
+    @CommandLine.Option(names = {
+            "--bidirectional" }, description = "Regress random walks from the goal and stop forward walks on a regressed partial state.")
+    public void setBidirectional(final boolean bidirectional) {
+        this.bidirectional = bidirectional;
+    }
+
+    /**
+     * Sets the number of walks regressed from the goal.
+     *
+     * @param regressionWalks the number of regression walks.
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    @CommandLine.Option(names = {
+            "--regression-walks" }, defaultValue = "200", paramLabel = "<walks>", description = "Set the number of walks regressed from the goal (preset 200).")
+    public void setRegressionWalks(final int regressionWalks) {
+        if (regressionWalks < 0) {
+            throw new IllegalArgumentException("Regression walks < 0");
+        }
+        this.regressionWalks = regressionWalks;
+    }
+
+    /**
+     * Runs the walks on the action schemas of the parsed problem instead of
+     * grounding the problem. Only the actions of the plan are grounded and the
+     * walks stop at the timeout. The options that work on the grounded actions
+     * (--landmarks, --symmetry, --bidirectional and --prune) are rejected with an
+     * <code>InvalidConfigurationException</code>.
+     *
+     * @param lifted <code>true</code> to walk without grounding.
+     */
+    @CommandLine.Option(names = {
+            "--lifted" }, description = "Walk over the action schemas of the parsed problem without grounding it (STRIPS, typing, negative preconditions, equality). "
+                    + "Cannot be combined with --landmarks, --symmetry, --bidirectional or --prune.")
+    public void setLifted(final boolean lifted) {
+        this.lifted = lifted;
+    }
 }
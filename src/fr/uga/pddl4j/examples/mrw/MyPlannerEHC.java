@@ -0,0 +1,295 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.problem.DefaultProblem;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+/**
+ * Planner hybride : hill-climbing glouton guidé par une heuristique de pddl4j,
+ * qui ne lance des marches aléatoires bornées que pour sortir d'un plateau ou
+ * d'un minimum local. Seul le chemin courant est conservé en mémoire,
+ * contrairement à l'A* de <code>HSP</code>.
+ *
+ * @author D. Pellier
+ * @version 4.0 - 30.11.2021
+ */
+@CommandLine.Command(name = "EHC", version = "EHC 1.0", description = "Solves a specified planning problem using enforced hill-climbing with random walk escapes.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+
+public class MyPlannerEHC extends AbstractPlanner {
+
+    private StateHeuristic.Name heuristic;
+    private int numWalks;
+    private int maxLengthWalk;
+    private boolean pruneActions;
+    private Long seed;
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(MyPlannerEHC.class.getName());
+
+    /**
+     * Instantiates the planning problem from a parsed problem.
+     *
+     * @param problem the problem to instantiate.
+     * @return the instantiated planning problem or null if the problem cannot be
+     *         instantiated.
+     */
+    @Override
+    public Problem instantiate(DefaultParsedProblem problem) {
+        final Problem pb = new DefaultProblem(problem);
+        pb.instantiate();
+        return pb;
+    }
+
+    /**
+     * Search a solution plan to a specified domain and problem using enforced
+     * hill-climbing and random walks to escape plateaus.
+     *
+     * @param problem the problem to solve.
+     * @return the plan found or null if no plan was found.
+     */
+    @Override
+    public Plan solve(final Problem problem) {
+        final long begin = System.currentTimeMillis();
+        final long deadline = begin + this.getTimeout() * 1000L;
+        StateHeuristic stateHeuristic = StateHeuristic.getInstance(this.getHeuristic(), problem);
+        State initialState = new State(problem.getInitialState());
+        Condition goal = problem.getGoal();
+        List<Action> actions = this.pruneActions ? ActionPruning.prune(problem) : problem.getActions();
+        long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
+        // Départage des ex aequo de la montée ; chaque marche d'échappement a son
+        // propre générateur, tiré de son indice
+        RandomGenerator random = RandomWalk.stream(searchSeed, -1);
+
+        int escapeLength = this.maxLengthWalk > 0 ? this.maxLengthWalk
+                : Math.min(100, 2 * problem.getFluents().size()); // même borne que MyPlanner
+        int climbSteps = 0;
+        int escapeWalks = 0;
+        int restarts = 0;
+
+        LOGGER.info("* Starting enforced hill-climbing search with random walk escapes\n");
+
+        List<Action> currentPlan = new ArrayList<>();
+        State currentState = new State(initialState);
+        int currentValue = stateHeuristic.estimate(currentState, goal);
+
+        while (System.currentTimeMillis() < deadline) {
+            if (currentState.satisfy(goal)) {
+                LOGGER.info("* Enforced hill-climbing succeeded ({} climbing steps, {} escape walks, {} restarts)\n",
+                        climbSteps, escapeWalks, restarts);
+                this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+                Plan plan = new SequentialPlan();
+                for (int i = 0; i < currentPlan.size(); i++) {
+                    plan.add(i, currentPlan.get(i));
+                }
+                return plan;
+            }
+
+            // Étape gloutonne : meilleur successeur au sens de l'heuristique
+            List<Action> bestActions = new ArrayList<>();
+            int bestValue = Integer.MAX_VALUE;
+            for (Action action : RandomWalk.applicableActions(actions, currentState)) {
+                State next = new State(currentState);
+                next.apply(action.getUnconditionalEffect());
+                int value = stateHeuristic.estimate(next, goal);
+                if (value < bestValue) {
+                    bestValue = value;
+                    bestActions.clear();
+                    bestActions.add(action);
+                } else if (value == bestValue) {
+                    bestActions.add(action);
+                }
+            }
+
+            if (bestValue < currentValue) {
+                Action selectedAction = bestActions.get(random.nextInt(bestActions.size()));
+                currentState.apply(selectedAction.getUnconditionalEffect());
+                currentPlan.add(selectedAction);
+                currentValue = bestValue;
+                climbSteps++;
+                continue;
+            }
+
+            // Plateau ou minimum local : marches aléatoires bornées jusqu'à trouver un
+            // état strictement meilleur. La longueur double à chaque série infructueuse.
+            RandomWalk.Result escape = null;
+            int escapeValue = currentValue;
+            int length = Math.min(10, escapeLength);
+            while (escape == null && System.currentTimeMillis() < deadline) {
+                for (int i = 0; i < this.numWalks && System.currentTimeMillis() < deadline; i++) {
+                    RandomWalk.Result walk = RandomWalk.walk(actions, currentState, goal, length,
+                            RandomWalk.stream(searchSeed, escapeWalks));
+                    escapeWalks++;
+                    int value = walk.goalReached ? 0 : stateHeuristic.estimate(walk.state, goal);
+                    if (value < escapeValue) {
+                        escape = walk;
+                        escapeValue = value;
+                        break;
+                    }
+                }
+                if (length >= escapeLength) {
+                    break;
+                }
+                length = Math.min(2 * length, escapeLength);
+            }
+
+            if (escape != null) {
+                PlannerEvents.Jump event = new PlannerEvents.Jump("EHC");
+                currentState = escape.state;
+                currentPlan.addAll(escape.actions);
+                currentValue = escapeValue;
+                event.prefixLength = currentPlan.size();
+                event.heuristic = currentValue;
+                event.commit();
+            } else {
+                // Aucune marche n'a permis de s'échapper : on repart de l'état initial
+                restarts++;
+                currentPlan.clear();
+                currentState = new State(initialState);
+                currentValue = stateHeuristic.estimate(currentState, goal);
+            }
+        }
+
+        this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+        LOGGER.info("* Enforced hill-climbing failed to find a solution before timeout\n");
+        return null;
+    }
+
+    /**
+     * Returns if a specified problem is supported by the planner. Just ADL problem
+     * can be solved by this planner.
+     *
+     * @param problem the problem to test.
+     * @return <code>true</code> if the problem is supported <code>false</code>
+     *         otherwise.
+     */
+    @Override
+    public boolean isSupported(Problem problem) {
+        return !problem.getRequirements().contains(RequireKey.ACTION_COSTS)
+                && !problem.getRequirements().contains(RequireKey.CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.CONTINOUS_EFFECTS)
+                && !problem.getRequirements().contains(RequireKey.DERIVED_PREDICATES)
+                && !problem.getRequirements().contains(RequireKey.DURATIVE_ACTIONS)
+                && !problem.getRequirements().contains(RequireKey.DURATION_INEQUALITIES)
+                && !problem.getRequirements().contains(RequireKey.FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.GOAL_UTILITIES)
+                && !problem.getRequirements().contains(RequireKey.METHOD_CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.NUMERIC_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.OBJECT_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.PREFERENCES)
+                && !problem.getRequirements().contains(RequireKey.TIMED_INITIAL_LITERALS)
+                && !problem.getRequirements().contains(RequireKey.HIERARCHY);
+    }
+
+    /**
+     * The main method of the <code>EHC</code> planner.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final MyPlannerEHC planner = new MyPlannerEHC();
+            CommandLine cmd = new CommandLine(planner);
+            cmd.execute(args);
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the name of the heuristic used by the planner to solve a planning
+     * problem.
+     *
+     * @return the name of the heuristic used by the planner to solve a planning
+     *         problem.
+     */
+    public final StateHeuristic.Name getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * Set the name of heuristic used by the planner to the solve a planning
+     * problem.
+     *
+     * @param heuristic the name of the heuristic.
+     */
+    @CommandLine.Option(names = { "-e",
+            "--heuristic" }, defaultValue = "FAST_FORWARD", description = "Set the heuristic : AJUSTED_SUM, AJUSTED_SUM2, AJUSTED_SUM2M, COMBO, "
+                    + "MAX, FAST_FORWARD SET_LEVEL, SUM, SUM_MUTEX (preset: FAST_FORWARD)")
+    public void setHeuristic(StateHeuristic.Name heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Sets the number of random walks tried from a plateau for each walk length.
+     *
+     * @param numWalks the number of walks. It must be greater than 0.
+     * @throws IllegalArgumentException if the number of walks is less than 1.
+     */
+    @CommandLine.Option(names = { "-n",
+            "--walks" }, defaultValue = "200", paramLabel = "<walks>", description = "Set the number of escape walks per walk length (preset 200).")
+    public void setNumWalks(final int numWalks) {
+        if (numWalks < 1) {
+            throw new IllegalArgumentException("Walks < 1");
+        }
+        this.numWalks = numWalks;
+    }
+
+    /**
+     * Sets the maximum length of an escape walk. 0 means that the length is
+     * computed from the number of fluents of the problem, like in
+     * <code>MyPlanner</code>.
+     *
+     * @param maxLengthWalk the maximum length of an escape walk.
+     * @throws IllegalArgumentException if the length is negative.
+     */
+    @CommandLine.Option(names = { "-m",
+            "--walk-length" }, defaultValue = "0", paramLabel = "<length>", description = "Set the maximum length of an escape walk (preset 0: min(100, 2 * fluents)).")
+    public void setMaxLengthWalk(final int maxLengthWalk) {
+        if (maxLengthWalk < 0) {
+            throw new IllegalArgumentException("Walk length < 0");
+        }
+        this.maxLengthWalk = maxLengthWalk;
+    }
+
+    /**
+     * Enables the goal-relevance pruning of the actions before the search.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the search.")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+
+    /**
+     * Sets the seed of the search. Each escape walk draws from its own stream
+     * derived from the seed and the walk index. Without seed, a random seed is
+     * drawn and logged so that the run can be replayed.
+     *
+     * @param seed the seed of the search.
+     */
+    @CommandLine.Option(names = {
+            "--seed" }, paramLabel = "<seed>", description = "Set the seed of the search (preset: none, a random seed is drawn and logged).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+}
@@ -9,14 +9,14 @@ import fr.uga.pddl4j.planners.AbstractPlanner;
 import fr.uga.pddl4j.problem.DefaultProblem;
 import fr.uga.pddl4j.problem.Problem;
 import fr.uga.pddl4j.problem.operator.Condition;
-import fr.uga.pddl4j.util.BitVector;
 import fr.uga.pddl4j.problem.State;
 import fr.uga.pddl4j.problem.operator.Action;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -37,6 +37,14 @@ public class MyPlannerImprove extends AbstractPlanner {
 
     private double heuristicWeight;
     private StateHeuristic.Name heuristic;
+    private boolean pruneActions;
+    private boolean detectDeadEnds;
+    private String progressFile;
+    private long progressInterval;
+    private Long seed;
+    private boolean useSymmetry;
+    private String priorsFile;
+    private int walkCount;
     /**
      * The class logger.
      */
@@ -51,64 +59,64 @@ public class MyPlannerImprove extends AbstractPlanner {
      */
     @Override
     public Problem instantiate(DefaultParsedProblem problem) {
+        PlannerEvents.Phase event = new PlannerEvents.Phase("MRW-Improve", "instantiate");
+        event.begin();
         final Problem pb = new DefaultProblem(problem);
         pb.instantiate();
+        event.parseMillis = this.getStatistics().getTimeToParse();
+        event.actions = pb.getActions().size();
+        event.fluents = pb.getFluents().size();
+        event.commit();
         return pb;
     }
 
     /**
-     * Évalue l'état actuel par rapport à l'objectif et retourne un score
-     * heuristique.
-     * 
-     * @param currentState L'état à évaluer.
-     * @param goal         L'objectif à atteindre.
-     * @return Un score heuristique (plus il est bas, plus l'état est proche de
-     *         l'objectif).
+     * Search a solution plan to a specified domain and problem using PWR.
+     *
+     * @param problem the problem to solve.
+     * @return the plan found or null if no plan was found.
      */
-    private double evaluateHeuristic(State currentState, Condition goal) {
-        double heuristicValue = 0.0;
-
-        // Vérifie les fluents positifs de l'objectif
-        BitVector goalPositiveFluents = goal.getPositiveFluents();
-        for (int i = 0; i < goalPositiveFluents.size(); i++) {
-            if (goalPositiveFluents.get(i) && !currentState.get(i)) {
-                heuristicValue += 1.0; // Incrémente le score pour chaque fluent positif non satisfait
-            }
-        }
-
-        // Vérifie les fluents négatifs de l'objectif
-        BitVector goalNegativeFluents = goal.getNegativeFluents();
-        for (int i = 0; i < goalNegativeFluents.size(); i++) {
-            if (goalNegativeFluents.get(i) && currentState.get(i)) {
-                heuristicValue += 1.0; // Incrémente le score si un fluent négatif est présent dans l'état actuel
+    @Override
+    public Plan solve(final Problem problem) {
+        try (Progress progress = Progress.open(this.progressFile, this.progressInterval, "MRW-Improve")) {
+            PlannerEvents.Phase event = new PlannerEvents.Phase("MRW-Improve", "search");
+            event.begin();
+            Plan plan = this.search(problem, progress);
+            event.actions = problem.getActions().size();
+            event.fluents = problem.getFluents().size();
+            event.planLength = plan != null ? plan.size() : -1;
+            event.commit();
+            if (plan != null) {
+                progress.event("plan", "length", plan.size());
+            } else {
+                progress.event("failure");
             }
+            return plan;
         }
-
-        // Retourne le score heuristique
-        return heuristicValue;
     }
 
     /**
-     * Search a solution plan to a specified domain and problem using PWR.
+     * Boucle des marches aléatoires avec MDA et MHA.
      *
-     * @param problem the problem to solve.
-     * @return the plan found or null if no plan was found.
+     * @param problem  le problème à résoudre.
+     * @param progress le flux d'événements de progression.
+     * @return le plan trouvé ou null.
      */
-    @Override
-    public Plan solve(final Problem problem) {
+    private Plan search(final Problem problem, final Progress progress) {
         Plan plan = new SequentialPlan();
         List<Action> bestActionSequence = new ArrayList<>();
         State initialState = new State(problem.getInitialState());
         Condition goal = problem.getGoal();
+        List<Action> actions = this.pruneActions ? ActionPruning.prune(problem) : problem.getActions();
         int numWalks = 4000; // Nombre maximum de marches aléatoires
         int maxLengthWalk = Math.min(100, 2 * problem.getFluents().size());  // Longueur maximale d'une marche aléatoire
-        Random random = new Random();
+        long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
         double bestHeuristicValue = Double.MAX_VALUE;
 
         // Seuils pour MDA et MHA
         int deadEndCount = 0;
         int totalWalks = 0;
-        int totalBranchingFactor = 0; // Somme des facteurs de branchement pour calcul de la moyenne
+        long totalBranchingFactor = 0; // Somme des facteurs de branchement pour calcul de la moyenne
         boolean useMDA = false;
         boolean useMHA = false;
 
@@ -117,22 +125,64 @@ public class MyPlannerImprove extends AbstractPlanner {
         Map<Action, Integer> failureCount = new HashMap<>();
         Map<Action, Integer> helpfulActionCount = new HashMap<>();
 
-        for (Action action : problem.getActions()) {
+        // A priori appris sur les problèmes précédents du même domaine
+        File statsFile = null;
+        ActionSchemaStats priors = ActionSchemaStats.empty();
+        if (this.priorsFile != null) {
+            statsFile = this.priorsFile.isEmpty() ? ActionSchemaStats.defaultFile(this.getDomain())
+                    : new File(this.priorsFile);
+            PlannerEvents.Phase event = new PlannerEvents.Phase("MRW-Improve", "load-priors");
+            event.begin();
+            priors = ActionSchemaStats.load(statsFile);
+            event.commit();
+            if (!priors.isEmpty()) {
+                useMDA = priors.deadEndRate() >= 0.5;
+                useMHA = priors.averageBranchingFactor() > 1000;
+                LOGGER.info("* Action schema priors loaded from {} (MDA {}, MHA {})\n", statsFile, useMDA, useMHA);
+            }
+        }
+
+        for (Action action : actions) {
             successCount.put(action, 0);
-            failureCount.put(action, 0);
-            helpfulActionCount.put(action, 0);
+            failureCount.put(action, priors.failurePrior(action));
+            helpfulActionCount.put(action, priors.successPrior(action));
         }
+        // Compteurs par schéma à enregistrer : applications, entrées dans une
+        // impasse et applications qui atteignent le but
+        Map<String, long[]> schemaCounts = new HashMap<>();
+
+        // Détection précoce des impasses à partir des invariants du problème
+        DeadEnds deadEnds = this.detectDeadEnds ? DeadEnds.analyse(problem, actions) : null;
+        int detectedDeadEndCount = 0;
+
+        // Tirage par orbite d'actions symétriques
+        Symmetry symmetry = null;
+        if (this.useSymmetry) {
+            symmetry = Symmetry.detect(problem);
+            LOGGER.info("* {} classes of interchangeable objects {}\n", symmetry.getClassCount(),
+                    symmetry.describe(problem));
+        }
+
+        // Suivi pour le flux de progression : meilleure valeur heuristique des
+        // états finaux de toutes les marches, pas seulement des marches réussies
+        long totalSteps = 0;
+        double bestEndHeuristicValue = Double.MAX_VALUE;
+        PlannerEvents.WalkBatch batch = new PlannerEvents.WalkBatch("MRW-Improve");
+        batch.begin();
 
         LOGGER.info("* Starting Pure Random Walk search with threshold-based MDA and MHA\n");
 
+        this.walkCount = 0;
         for (int i = 0; i < numWalks; i++) {
+            this.walkCount++;
+            // Générateur propre à la marche i : la même graine rejoue les mêmes marches
+            RandomGenerator random = RandomWalk.stream(searchSeed, i);
             State currentState = new State(initialState);
             List<Action> currentActionSequence = new ArrayList<>();
             boolean walkSucceeded = false;
             boolean walkHitDeadEnd = false;
 
             for (int j = 0; j < maxLengthWalk; j++) {
-                List<Action> actions = problem.getActions();
                 List<Action> applicableActions = new ArrayList<>();
 
                 for (Action action : actions) {
@@ -143,6 +193,7 @@ public class MyPlannerImprove extends AbstractPlanner {
 
                 // Mettre à jour le facteur de branchement total (average branching factor)
                 totalBranchingFactor += applicableActions.size();
+                batch.applicableActions += applicableActions.size();
 
                 if (applicableActions.isEmpty()) {
                     walkHitDeadEnd = true;
@@ -150,6 +201,10 @@ public class MyPlannerImprove extends AbstractPlanner {
                     break;
                 }
 
+                if (symmetry != null) {
+                    applicableActions = symmetry.representatives(applicableActions, currentState, random);
+                }
+
                 Action selectedAction;
 
                 // Appliquer MHA ou MDA selon les seuils
@@ -169,6 +224,8 @@ public class MyPlannerImprove extends AbstractPlanner {
 
                 currentState.apply(selectedAction.getUnconditionalEffect());
                 currentActionSequence.add(selectedAction);
+                totalSteps++;
+                batch.steps++;
 
                 if (currentState.satisfy(goal)) {
                     walkSucceeded = true;
@@ -178,31 +235,93 @@ public class MyPlannerImprove extends AbstractPlanner {
                 } else {
                     failureCount.put(selectedAction, failureCount.get(selectedAction) + 1);
                 }
+
+                // Arrêter la marche dès qu'elle entre dans une impasse détectée
+                if (deadEnds != null && deadEnds.isDeadEnd(currentState)) {
+                    walkHitDeadEnd = true;
+                    deadEndCount++;
+                    detectedDeadEndCount++;
+                    break;
+                }
+            }
+
+            if (statsFile != null) {
+                for (Action action : currentActionSequence) {
+                    schemaCounts.computeIfAbsent(action.getName(), name -> new long[3])[0]++;
+                }
+                if (!currentActionSequence.isEmpty() && (walkHitDeadEnd || walkSucceeded)) {
+                    Action last = currentActionSequence.get(currentActionSequence.size() - 1);
+                    schemaCounts.get(last.getName())[walkHitDeadEnd ? 1 : 2]++;
+                }
             }
 
             // Vérifier si MDA ou MHA doivent être activés
             totalWalks++;
+            batch.walks++;
+            batch.deadEnds += walkHitDeadEnd ? 1 : 0;
+            batch.goalReached |= walkSucceeded;
             if (totalWalks % 100 == 0) { // toutes les 100 marches
                 if ((double) deadEndCount / totalWalks >= 0.5) {
+                    if (!useMDA) {
+                        progress.event("mda", "walks", totalWalks, "dead_end_ratio",
+                                (double) deadEndCount / totalWalks);
+                    }
                     useMDA = true;
                     LOGGER.info("Activating MDA due to high dead-end rate.\n");
                 }
 
                 // Calcul du facteur de branchement moyen et activation de MHA si nécessaire
-                int averageBranchingFactor = totalBranchingFactor / totalWalks;
+                long averageBranchingFactor = totalBranchingFactor / totalWalks;
                 if (averageBranchingFactor > 1000) {
+                    if (!useMHA) {
+                        progress.event("mha", "walks", totalWalks, "branching_factor", averageBranchingFactor);
+                    }
                     useMHA = true;
                     LOGGER.info("Activating MHA due to high branching factor.\n");
                 }
             }
 
+            if (progress.isEnabled()) {
+                bestEndHeuristicValue = Math.min(bestEndHeuristicValue,
+                        RandomWalk.evaluateHeuristic(currentState, goal));
+                if (progress.isDue()) {
+                    progress.progress("walks", totalWalks, "steps", totalSteps,
+                            "steps_per_s", totalSteps * 1000.0 / Math.max(1, progress.elapsedMillis()),
+                            "dead_end_ratio", (double) deadEndCount / totalWalks,
+                            "best_h", bestEndHeuristicValue, "mda", useMDA, "mha", useMHA);
+                }
+            }
+
             if (walkSucceeded) {
-                double heuristicValue = evaluateHeuristic(currentState, goal);
+                double heuristicValue = RandomWalk.evaluateHeuristic(currentState, goal);
                 if (heuristicValue < bestHeuristicValue) {
                     bestHeuristicValue = heuristicValue;
                     bestActionSequence = new ArrayList<>(currentActionSequence);
                 }
             }
+
+            if (batch.walks == PlannerEvents.WALK_BATCH || i == numWalks - 1) {
+                batch.bestHeuristic = bestHeuristicValue;
+                batch.mda = useMDA;
+                batch.mha = useMHA;
+                batch.commit();
+                batch = new PlannerEvents.WalkBatch("MRW-Improve");
+                batch.begin();
+            }
+        }
+
+        // Enregistrement des statistiques de cette recherche, agrégées par schéma
+        if (statsFile != null) {
+            PlannerEvents.Phase event = new PlannerEvents.Phase("MRW-Improve", "save-priors");
+            event.begin();
+            ActionSchemaStats increment = ActionSchemaStats.empty();
+            for (Map.Entry<String, long[]> entry : schemaCounts.entrySet()) {
+                long[] counts = entry.getValue();
+                increment.addSchema(entry.getKey(), counts[0], counts[1], counts[2]);
+            }
+            increment.addWalks(totalWalks, deadEndCount, totalBranchingFactor);
+            ActionSchemaStats.merge(statsFile, increment);
+            event.commit();
         }
 
         if (!bestActionSequence.isEmpty()) {
@@ -212,7 +331,8 @@ public class MyPlannerImprove extends AbstractPlanner {
             }
             return plan;
         } else {
-            LOGGER.info("* Enhanced Random Walk search failed to find a solution within the walk limit\n");
+            LOGGER.info("* Enhanced Random Walk search failed to find a solution within the walk limit"
+                    + " ({} walks stopped early on a detected dead end)\n", detectedDeadEndCount);
             return null;
         }
     }
@@ -222,7 +342,7 @@ public class MyPlannerImprove extends AbstractPlanner {
      * autorisée.
      */
     private Action selectActionWithMDA(List<Action> applicableActions, Map<Action, Integer> failureCount,
-            Random random) {
+            RandomGenerator random) {
         int minFailures = Integer.MAX_VALUE;
         List<Action> bestActions = new ArrayList<>();
 
@@ -292,6 +412,15 @@ public class MyPlannerImprove extends AbstractPlanner {
         return this.heuristic;
     }
 
+    /**
+     * Returns the number of random walks started by the last search.
+     *
+     * @return the number of walks of the last search.
+     */
+    public final int getWalkCount() {
+        return this.walkCount;
+    }
+
     /**
      * Returns the weight of the heuristic.
      *
@@ -328,5 +457,93 @@ public class MyPlannerImprove extends AbstractPlanner {
     public void setHeuristic(StateHeuristic.Name heuristic) {
         this.heuristic = heuristic;
     }
-}
 
+    /**
+     * Enables the goal-relevance pruning of the actions before the search.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the search.")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+
+    /**
+     * Enables the early dead-end detection during the walks.
+     *
+     * @param detectDeadEnds <code>true</code> to stop walks on detected dead ends.
+     */
+    @CommandLine.Option(names = {
+            "--dead-ends" }, description = "Stop walks as soon as they reach a state from which the goal is unreachable (h^2 mutexes and relaxed reachability).")
+    public void setDetectDeadEnds(final boolean detectDeadEnds) {
+        this.detectDeadEnds = detectDeadEnds;
+    }
+
+    /**
+     * Writes progress events as JSON Lines to a file, or to the standard output
+     * with "-".
+     *
+     * @param progressFile the progress file.
+     */
+    @CommandLine.Option(names = {
+            "--progress" }, paramLabel = "<file|->", description = "Write JSON Lines progress events to a file or to the standard output (-).")
+    public void setProgressFile(final String progressFile) {
+        this.progressFile = progressFile;
+    }
+
+    /**
+     * Sets the interval between two periodic progress events.
+     *
+     * @param progressInterval the interval in milliseconds.
+     * @throws IllegalArgumentException if the interval is not strictly positive.
+     */
+    @CommandLine.Option(names = {
+            "--progress-interval" }, defaultValue = "1000", paramLabel = "<ms>", description = "Set the interval between two progress events in milliseconds (preset 1000).")
+    public void setProgressInterval(final long progressInterval) {
+        if (progressInterval <= 0) {
+            throw new IllegalArgumentException("Progress interval <= 0");
+        }
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Sets the seed of the random walks. Each walk draws from its own stream derived
+     * from the seed and the walk index. Without seed, a random seed is drawn and
+     * logged so that the run can be replayed.
+     *
+     * @param seed the seed of the random walks.
+     */
+    @CommandLine.Option(names = {
+            "--seed" }, paramLabel = "<seed>", description = "Set the seed of the random walks (preset: none, a random seed is drawn and logged).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Loads the action schema statistics of the domain as priors before the
+     * search and adds the statistics of the search to the file afterwards.
+     * Without file name, the file "domain-stats.properties" next to the domain
+     * file is used.
+     *
+     * @param priorsFile the statistics file, or an empty string for the default
+     *                   file.
+     */
+    @CommandLine.Option(names = {
+            "--priors" }, arity = "0..1", fallbackValue = "", paramLabel = "<file>", description = "Warm-start MDA/MHA with per-domain action schema statistics and update them after the search (preset file: domain-stats.properties next to the domain).")
+    public void setPriorsFile(final String priorsFile) {
+        this.priorsFile = priorsFile;
+    }
+
+    /**
+     * Groups the applicable actions of each step into orbits of interchangeable
+     * objects and draws an orbit before drawing an action.
+     *
+     * @param useSymmetry <code>true</code> to sample the actions by orbit.
+     */
+    @CommandLine.Option(names = {
+            "--symmetry" }, description = "Sample the actions of the walks by orbit of interchangeable objects.")
+    public void setUseSymmetry(final boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+    }
+}
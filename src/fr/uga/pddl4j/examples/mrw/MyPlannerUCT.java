@@ -0,0 +1,406 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.parser.RequireKey;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.plan.SequentialPlan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.problem.DefaultProblem;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import picocli.CommandLine;
+
+/**
+ * Planner Monte-Carlo Tree Search (UCT). Un arbre est construit sur le début
+ * des marches et les marches aléatoires de <code>RandomWalk</code> servent de
+ * rollouts : l'information des rollouts s'accumule dans l'arbre au lieu d'être
+ * perdue après chaque marche comme dans <code>MyPlanner</code>.
+ * <p>
+ * Les noeuds de l'arbre sont stockés dans des tableaux de primitives dont la
+ * taille est fixée par le budget de noeuds. Les états ne sont pas conservés :
+ * ils sont recalculés en rejouant les actions depuis la racine.
+ * </p>
+ *
+ * @author D. Pellier
+ * @version 4.0 - 30.11.2021
+ */
+@CommandLine.Command(name = "UCT", version = "UCT 1.0", description = "Solves a specified planning problem using Monte-Carlo tree search with random walk rollouts.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+
+public class MyPlannerUCT extends AbstractPlanner {
+
+    private StateHeuristic.Name heuristic;
+    private int nodeBudget;
+    private double exploration;
+    private boolean useLandmarks;
+    private double landmarkBias;
+    private boolean pruneActions;
+    private Long seed;
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(MyPlannerUCT.class.getName());
+
+    // Arbre UCT : un noeud est un indice dans ces tableaux, la racine est 0.
+    private int[] parent;
+    private int[] actionIndex;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] visits;
+    private double[] rewards;
+    private int nodeCount;
+
+    /**
+     * Instantiates the planning problem from a parsed problem.
+     *
+     * @param problem the problem to instantiate.
+     * @return the instantiated planning problem or null if the problem cannot be
+     *         instantiated.
+     */
+    @Override
+    public Problem instantiate(DefaultParsedProblem problem) {
+        final Problem pb = new DefaultProblem(problem);
+        pb.instantiate();
+        return pb;
+    }
+
+    /**
+     * Search a solution plan to a specified domain and problem using UCT.
+     *
+     * @param problem the problem to solve.
+     * @return the plan found or null if no plan was found.
+     */
+    @Override
+    public Plan solve(final Problem problem) {
+        final long begin = System.currentTimeMillis();
+        final long deadline = begin + this.getTimeout() * 1000L;
+        List<Action> actions = this.pruneActions ? ActionPruning.prune(problem) : problem.getActions();
+        State initialState = new State(problem.getInitialState());
+        Condition goal = problem.getGoal();
+        int maxLengthWalk = Math.min(100, 2 * problem.getFluents().size()); // même borne que MyPlanner
+        StateHeuristic stateHeuristic = this.getHeuristic() == null ? null
+                : StateHeuristic.getInstance(this.getHeuristic(), problem);
+        long searchSeed = RandomWalk.searchSeed(this.seed, LOGGER);
+        double bestHeuristicValue = Double.MAX_VALUE;
+        int walks = 0;
+
+        // Les rollouts peuvent être guidés et notés par le compteur de landmarks. Le
+        // compteur repart de l'état de la feuille : seuls les landmarks vrais dans cet
+        // état sont acceptés, ceux atteints puis perdus le long du préfixe restent à
+        // atteindre.
+        RandomWalk.Guide guide = RandomWalk.UNIFORM;
+        Landmarks.Counter landmarkCounter = null;
+        if (this.useLandmarks) {
+            Landmarks landmarks = Landmarks.extract(problem);
+            LOGGER.info("* {} landmarks extracted\n", landmarks.size());
+            landmarkCounter = landmarks.newCounter(this.landmarkBias);
+            guide = landmarkCounter;
+        }
+
+        this.allocateTree(this.nodeBudget);
+
+        LOGGER.info("* Starting UCT search (node budget {})\n", this.nodeBudget);
+
+        while (System.currentTimeMillis() < deadline) {
+            // Générateur propre à l'itération : descente, expansion et rollout
+            RandomGenerator random = RandomWalk.stream(searchSeed, walks);
+            State currentState = new State(initialState);
+            List<Action> prefix = new ArrayList<>();
+
+            // Sélection : descente dans l'arbre avec UCB1
+            int node = 0;
+            while (this.firstChild[node] >= 0) {
+                node = this.selectChild(node, random);
+                Action action = actions.get(this.actionIndex[node]);
+                currentState.apply(action.getUnconditionalEffect());
+                prefix.add(action);
+            }
+
+            // Expansion : le noeud feuille reçoit un fils par action applicable
+            if (this.visits[node] > 0 || node == 0) {
+                if (this.expand(node, actions, currentState)) {
+                    node = this.selectChild(node, random);
+                    Action action = actions.get(this.actionIndex[node]);
+                    currentState.apply(action.getUnconditionalEffect());
+                    prefix.add(action);
+                }
+            }
+
+            // Rollout : marche aléatoire depuis la feuille
+            RandomWalk.Result walk;
+            if (currentState.satisfy(goal)) {
+                walk = new RandomWalk.Result(currentState, new ArrayList<>(), true, false, 0);
+            } else {
+                walk = RandomWalk.walk(actions, currentState, goal, Math.max(1, maxLengthWalk - prefix.size()),
+                        random, guide);
+            }
+            walks++;
+
+            if (walk.goalReached) {
+                LOGGER.info("* Solution found after {} UCT walks ({} nodes)\n", walks, this.nodeCount);
+                this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+                Plan plan = new SequentialPlan();
+                prefix.addAll(walk.actions);
+                for (int i = 0; i < prefix.size(); i++) {
+                    plan.add(i, prefix.get(i));
+                }
+                return plan;
+            }
+
+            double heuristicValue;
+            if (stateHeuristic != null) {
+                heuristicValue = stateHeuristic.estimate(walk.state, goal);
+            } else if (landmarkCounter != null) {
+                heuristicValue = landmarkCounter.value(walk.state);
+            } else {
+                heuristicValue = RandomWalk.evaluateHeuristic(walk.state, goal);
+            }
+            if (heuristicValue < bestHeuristicValue) {
+                bestHeuristicValue = heuristicValue;
+            }
+            double reward = heuristicValue == Integer.MAX_VALUE ? 0.0 : 1.0 / (1.0 + heuristicValue);
+
+            // Rétropropagation de la récompense jusqu'à la racine
+            for (int n = node; n >= 0; n = this.parent[n]) {
+                this.visits[n]++;
+                this.rewards[n] += reward;
+            }
+        }
+
+        this.getStatistics().setTimeToSearch(System.currentTimeMillis() - begin);
+        LOGGER.info("* UCT search failed after {} walks ({} nodes, best heuristic value {})\n", walks,
+                this.nodeCount, bestHeuristicValue);
+        return null;
+    }
+
+    /**
+     * Alloue les tableaux de l'arbre et crée la racine.
+     *
+     * @param capacity le nombre maximum de noeuds.
+     */
+    private void allocateTree(int capacity) {
+        this.parent = new int[capacity];
+        this.actionIndex = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.visits = new int[capacity];
+        this.rewards = new double[capacity];
+        this.parent[0] = -1;
+        this.actionIndex[0] = -1;
+        this.firstChild[0] = -1;
+        this.nextSibling[0] = -1;
+        this.nodeCount = 1;
+    }
+
+    /**
+     * Ajoute au noeud un fils par action applicable, si le budget de noeuds le
+     * permet.
+     *
+     * @return <code>true</code> si le noeud a été développé.
+     */
+    private boolean expand(int node, List<Action> actions, State state) {
+        List<Integer> applicable = new ArrayList<>();
+        for (int i = 0; i < actions.size(); i++) {
+            if (actions.get(i).isApplicable(state)) {
+                applicable.add(i);
+            }
+        }
+        if (applicable.isEmpty() || this.nodeCount + applicable.size() > this.parent.length) {
+            return false;
+        }
+        for (int index : applicable) {
+            int child = this.nodeCount++;
+            this.parent[child] = node;
+            this.actionIndex[child] = index;
+            this.firstChild[child] = -1;
+            this.nextSibling[child] = this.firstChild[node];
+            this.firstChild[node] = child;
+        }
+        return true;
+    }
+
+    /**
+     * Choisit un fils selon UCB1. Les fils jamais visités sont choisis en
+     * priorité, au hasard.
+     */
+    private int selectChild(int node, RandomGenerator random) {
+        double logVisits = Math.log(Math.max(1, this.visits[node]));
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int unvisited = 0;
+        for (int child = this.firstChild[node]; child >= 0; child = this.nextSibling[child]) {
+            if (this.visits[child] == 0) {
+                // Tirage uniforme parmi les fils non visités (reservoir sampling)
+                unvisited++;
+                if (random.nextInt(unvisited) == 0) {
+                    best = child;
+                }
+            } else if (unvisited == 0) {
+                double value = this.rewards[child] / this.visits[child]
+                        + this.exploration * Math.sqrt(logVisits / this.visits[child]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns if a specified problem is supported by the planner. Just ADL problem
+     * can be solved by this planner.
+     *
+     * @param problem the problem to test.
+     * @return <code>true</code> if the problem is supported <code>false</code>
+     *         otherwise.
+     */
+    @Override
+    public boolean isSupported(Problem problem) {
+        return !problem.getRequirements().contains(RequireKey.ACTION_COSTS)
+                && !problem.getRequirements().contains(RequireKey.CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.CONTINOUS_EFFECTS)
+                && !problem.getRequirements().contains(RequireKey.DERIVED_PREDICATES)
+                && !problem.getRequirements().contains(RequireKey.DURATIVE_ACTIONS)
+                && !problem.getRequirements().contains(RequireKey.DURATION_INEQUALITIES)
+                && !problem.getRequirements().contains(RequireKey.FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.GOAL_UTILITIES)
+                && !problem.getRequirements().contains(RequireKey.METHOD_CONSTRAINTS)
+                && !problem.getRequirements().contains(RequireKey.NUMERIC_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.OBJECT_FLUENTS)
+                && !problem.getRequirements().contains(RequireKey.PREFERENCES)
+                && !problem.getRequirements().contains(RequireKey.TIMED_INITIAL_LITERALS)
+                && !problem.getRequirements().contains(RequireKey.HIERARCHY);
+    }
+
+    /**
+     * The main method of the <code>UCT</code> planner.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        try {
+            final MyPlannerUCT planner = new MyPlannerUCT();
+            CommandLine cmd = new CommandLine(planner);
+            cmd.execute(args);
+        } catch (IllegalArgumentException e) {
+            LOGGER.fatal(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the name of the heuristic used to score the rollouts, or null if
+     * the goal count of <code>RandomWalk.evaluateHeuristic</code> is used.
+     *
+     * @return the name of the heuristic used to score the rollouts.
+     */
+    public final StateHeuristic.Name getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * Set the name of heuristic used to score the rollouts. When no heuristic is
+     * set, the rollouts are scored with the number of unsatisfied goal fluents.
+     *
+     * @param heuristic the name of the heuristic.
+     */
+    @CommandLine.Option(names = { "-e",
+            "--heuristic" }, description = "Set the heuristic used to score rollouts : AJUSTED_SUM, AJUSTED_SUM2, AJUSTED_SUM2M, COMBO, "
+                    + "MAX, FAST_FORWARD SET_LEVEL, SUM, SUM_MUTEX (preset: number of unsatisfied goal fluents)")
+    public void setHeuristic(StateHeuristic.Name heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Sets the maximum number of nodes of the search tree.
+     *
+     * @param nodeBudget the maximum number of nodes. It must be greater than 1.
+     * @throws IllegalArgumentException if the budget is less than 2.
+     */
+    @CommandLine.Option(names = { "-n",
+            "--nodes" }, defaultValue = "500000", paramLabel = "<nodes>", description = "Set the node budget of the search tree (preset 500000).")
+    public void setNodeBudget(final int nodeBudget) {
+        if (nodeBudget < 2) {
+            throw new IllegalArgumentException("Node budget < 2");
+        }
+        this.nodeBudget = nodeBudget;
+    }
+
+    /**
+     * Sets the exploration constant of UCB1.
+     *
+     * @param exploration the exploration constant. It must be positive.
+     * @throws IllegalArgumentException if the constant is negative.
+     */
+    @CommandLine.Option(names = { "-c",
+            "--exploration" }, defaultValue = "1.41", paramLabel = "<c>", description = "Set the UCB1 exploration constant (preset 1.41).")
+    public void setExploration(final double exploration) {
+        if (exploration < 0) {
+            throw new IllegalArgumentException("Exploration < 0");
+        }
+        this.exploration = exploration;
+    }
+
+    /**
+     * Enables the landmark guidance of the rollouts.
+     *
+     * @param useLandmarks <code>true</code> to guide and score the rollouts with
+     *                     landmarks.
+     */
+    @CommandLine.Option(names = {
+            "--landmarks" }, description = "Bias rollouts toward new landmarks and score them with a landmark count (unless -e is set).")
+    public void setUseLandmarks(final boolean useLandmarks) {
+        this.useLandmarks = useLandmarks;
+    }
+
+    /**
+     * Sets the probability of choosing an action that reaches a new landmark
+     * when one is applicable.
+     *
+     * @param landmarkBias the probability, between 0 and 1.
+     * @throws IllegalArgumentException if the probability is not between 0 and 1.
+     */
+    @CommandLine.Option(names = {
+            "--landmark-bias" }, defaultValue = "0.5", paramLabel = "<p>", description = "Set the probability of preferring landmark actions (preset 0.5).")
+    public void setLandmarkBias(final double landmarkBias) {
+        if (landmarkBias < 0 || landmarkBias > 1) {
+            throw new IllegalArgumentException("Landmark bias not in [0, 1]");
+        }
+        this.landmarkBias = landmarkBias;
+    }
+
+    /**
+     * Enables the goal-relevance pruning of the actions before the search.
+     *
+     * @param pruneActions <code>true</code> to prune the actions.
+     */
+    @CommandLine.Option(names = {
+            "--prune" }, description = "Prune unreachable and goal-irrelevant actions before the search.")
+    public void setPruneActions(final boolean pruneActions) {
+        this.pruneActions = pruneActions;
+    }
+
+    /**
+     * Sets the seed of the search. Each iteration (descent, expansion and
+     * rollout) draws from its own stream derived from the seed and the iteration
+     * index. Without seed, a random seed is drawn and logged so that the run can
+     * be replayed.
+     *
+     * @param seed the seed of the search.
+     */
+    @CommandLine.Option(names = {
+            "--seed" }, paramLabel = "<seed>", description = "Set the seed of the search (preset: none, a random seed is drawn and logged).")
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+}
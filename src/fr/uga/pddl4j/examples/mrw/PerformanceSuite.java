@@ -0,0 +1,536 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.LogLevel;
+import fr.uga.pddl4j.problem.Problem;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.ToDoubleFunction;
+
+import picocli.CommandLine;
+
+/**
+ * Suite de non-régression des performances de HSP, MyPlanner et
+ * MyPlannerImprove.
+ * <p>
+ * La suite exécute un sous-ensemble fixe des problèmes du dépôt avec les
+ * graines 0 .. n - 1 et un délai fixe par exécution. Pour chaque exécution
+ * sont mesurés le temps de <code>solve</code> (ms), la longueur du plan, le
+ * nombre de marches par seconde (planners à marches aléatoires) et le pic du
+ * tas pendant <code>solve</code> (Ko, somme des pics des zones du tas remis à
+ * zéro après un GC). Une exécution plus courte que <code>--min-time</code> est
+ * répétée jusqu'à atteindre cette durée et son temps est la moyenne des
+ * répétitions : quelques millisecondes de bruit pèsent peu sur 200 ms. Chaque
+ * couple (planner, problème) est d'abord exécuté sans mesure, par tours de
+ * toutes les graines, jusqu'à ce que les médianes de deux tours consécutifs
+ * diffèrent de moins de 5 % (le JIT a fini de compiler), ou au plus tard
+ * après <code>--warmup-time</code> secondes si un tour complet a été exécuté.
+ * </p>
+ * <p>
+ * Avec <code>--record</code>, les mesures sont écrites dans le fichier de
+ * référence (une ligne par exécution, séparateur ";", précédées d'un en-tête
+ * <code># clé: valeur</code> avec la version du format, la machine, les
+ * graines, le délai et la durée minimale des mesures), à garder dans le dépôt.
+ * Une référence ne vaut que pour la machine et la JVM sur lesquelles elle a été
+ * enregistrée : sur une autre machine, il faut l'enregistrer de nouveau (un
+ * avertissement est affiché si la machine diffère). Sans <code>--record</code>,
+ * la suite refait les exécutions avec les graines, le délai et la durée
+ * minimale de la référence et compare
+ * chaque couple (planner, problème) : un temps, un pic de tas ou un débit de
+ * marches est en régression si le test de Mann-Whitney unilatéral (approximation
+ * normale avec correction de continuité et des ex aequo) donne p &lt; alpha
+ * <b>et</b> si la médiane s'est dégradée de plus de la tolérance relative et
+ * de plus que l'écart interquartile des valeurs de la référence (leur propre
+ * dispersion d'une graine à l'autre).
+ * Les temps comparés sont les temps mesurés, y compris pour les exécutions
+ * sans plan : celles-ci s'arrêtent à la limite de marches des planners, bien
+ * avant le délai, et leur temps reste donc une mesure du coût des marches. La
+ * couverture et la longueur des plans sont seulement affichées. Code de sortie : 0 sans régression, 1 en cas
+ * de régression, 2 si la référence est absente ou illisible.
+ * </p>
+ */
+@CommandLine.Command(name = "PerformanceSuite", description = "Runs a fixed set of problems and records or checks a performance baseline.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+public class PerformanceSuite implements Callable<Integer> {
+
+    /**
+     * Version du format du fichier de référence.
+     */
+    private static final int FORMAT = 2;
+
+    /**
+     * Problèmes de la suite, relatifs à la racine du dépôt, deux par domaine :
+     * HSP les résout tous en quelques secondes, MRW et IMPROVE épuisent parfois
+     * leur limite de marches sur logistics et depots sans trouver de plan.
+     */
+    private static final String[] PROBLEMS = { "blocks/p003.pddl", "blocks/p006.pddl", "gripper/p01.pddl",
+        "gripper/p02.pddl", "logistics/p02.pddl", "logistics/p03.pddl", "depots/p01.pddl", "depots/p02.pddl" };
+
+    /**
+     * Écart de temps médian minimal (ms) d'une régression, quand l'écart
+     * interquartile de la référence est plus petit.
+     */
+    private static final double TIME_SLACK = 1;
+
+    /**
+     * Écart relatif maximal des médianes de deux tours d'échauffement
+     * consécutifs pour considérer les temps stables.
+     */
+    private static final double WARMUP_STABILITY = 0.05;
+
+    /**
+     * Durée minimale (ms) d'une exécution pour mesurer son débit de marches.
+     */
+    private static final double RATE_MIN_TIME = 50;
+
+    private static final String HEADER = "probleme;planner;seed;solved;time_ms;length;walks_per_s;peak_heap_kb";
+
+    @CommandLine.Option(names = { "-b",
+            "--baseline" }, defaultValue = "performance-baseline.txt", paramLabel = "<file>", description = "Set the baseline file (preset performance-baseline.txt).")
+    private File baseline;
+
+    @CommandLine.Option(names = {
+            "--record" }, description = "Run the suite and write the baseline instead of checking it.")
+    private boolean record;
+
+    @CommandLine.Option(names = {
+            "--root" }, defaultValue = ".", paramLabel = "<directory>", description = "Set the directory of the domain directories (preset .).")
+    private File root;
+
+    @CommandLine.Option(names = { "-n",
+            "--seeds" }, defaultValue = "5", paramLabel = "<seeds>", description = "Set the number of seeds recorded per planner and problem (preset 5, checks use the baseline value).")
+    private int seeds;
+
+    @CommandLine.Option(names = { "-t",
+            "--timeout" }, defaultValue = "60", paramLabel = "<timeout>", description = "Set the timeout of each run in seconds (preset 60, checks use the baseline value).")
+    private int timeout;
+
+    @CommandLine.Option(names = {
+            "--warmup-time" }, defaultValue = "10", paramLabel = "<seconds>", description = "Set the maximum warm-up time per planner and problem, spent until the median time of two rounds of seeds differs by less than 5%; one round is always run (preset 10).")
+    private int warmupTime;
+
+    @CommandLine.Option(names = {
+            "--min-time" }, defaultValue = "200", paramLabel = "<ms>", description = "Repeat each measured run until it totals this time and record the mean time (preset 200, checks use the baseline value).")
+    private int minTime;
+
+    @CommandLine.Option(names = {
+            "--planners" }, split = ",", defaultValue = "HSP,MRW,IMPROVE", paramLabel = "<planner>", description = "Set the planners among HSP, MRW and IMPROVE (preset HSP,MRW,IMPROVE).")
+    private List<String> planners;
+
+    @CommandLine.Option(names = {
+            "--alpha" }, defaultValue = "0.01", paramLabel = "<alpha>", description = "Set the significance level of the one-sided Mann-Whitney test (preset 0.01, reachable from 5 seeds).")
+    private double alpha;
+
+    @CommandLine.Option(names = {
+            "--tolerance" }, defaultValue = "0.25", paramLabel = "<ratio>", description = "Set the relative change of the median below which a difference is ignored (preset 0.25).")
+    private double tolerance;
+
+    /**
+     * Une exécution mesurée.
+     */
+    private static final class Run {
+
+        private final boolean solved;
+        private final double time;
+        private final double length;
+        private final double walksPerSecond;
+        private final double peakHeap;
+
+        private Run(boolean solved, double time, double length, double walksPerSecond, double peakHeap) {
+            this.solved = solved;
+            this.time = time;
+            this.length = length;
+            this.walksPerSecond = walksPerSecond;
+            this.peakHeap = peakHeap;
+        }
+    }
+
+    /**
+     * Enregistre ou vérifie la référence.
+     *
+     * @return le code de sortie.
+     * @throws IOException si un fichier ne peut pas être lu ou écrit.
+     */
+    @Override
+    public Integer call() throws IOException {
+        if (this.record) {
+            Map<String, List<Run>> runs = this.runAll(this.seeds, this.timeout, this.minTime);
+            this.write(runs);
+            System.out.println("Baseline written to " + this.baseline);
+            return 0;
+        }
+
+        Map<String, String> header = new LinkedHashMap<>();
+        Map<String, List<Run>> reference = this.read(header);
+        if (reference == null) {
+            return 2;
+        }
+        int baselineSeeds = Integer.parseInt(header.get("seeds"));
+        int baselineTimeout = Integer.parseInt(header.get("timeout"));
+        int baselineMinTime = Integer.parseInt(header.get("min-time"));
+        System.out.printf(Locale.ROOT, "Checking against %s (recorded %s on %s, java %s)%n", this.baseline,
+                header.get("recorded"), header.get("host"), header.get("java"));
+        if (!host().equals(header.get("host")) || !System.getProperty("java.version").equals(header.get("java"))) {
+            System.out.printf(Locale.ROOT, "WARNING: this is %s, java %s; timings are only comparable on the host "
+                    + "and JVM of the baseline, record it again here%n", host(), System.getProperty("java.version"));
+        }
+        Map<String, List<Run>> current = this.runAll(baselineSeeds, baselineTimeout, baselineMinTime);
+
+        int regressions = 0;
+        System.out.println();
+        for (Map.Entry<String, List<Run>> entry : current.entrySet()) {
+            List<Run> before = reference.get(entry.getKey());
+            if (before == null) {
+                System.out.println(entry.getKey() + ": not in the baseline");
+                continue;
+            }
+            regressions += this.compare(entry.getKey(), before, entry.getValue());
+        }
+        System.out.println();
+        if (regressions > 0) {
+            System.out.println(regressions + " performance regression(s) against " + this.baseline);
+            return 1;
+        }
+        System.out.println("No performance regression against " + this.baseline);
+        return 0;
+    }
+
+    /**
+     * Exécute tous les couples (planner, problème), dans l'ordre de la suite.
+     */
+    private Map<String, List<Run>> runAll(int runs, int runTimeout, int runMinTime) throws IOException {
+        Map<String, List<Run>> results = new LinkedHashMap<>();
+        for (String problem : PROBLEMS) {
+            for (String name : this.planners) {
+                results.put(problem + ";" + name.toUpperCase(Locale.ROOT), this.run(name, problem, runs,
+                        runTimeout, runMinTime));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Exécute un planner sur un problème pour toutes les graines, après
+     * l'échauffement.
+     */
+    private List<Run> run(String name, String problemFile, int runs, int runTimeout, int runMinTime)
+            throws IOException {
+        File file = new File(this.root, problemFile);
+        AbstractPlanner planner = Planners.newPlanner(name);
+        planner.setDomain(new File(file.getParentFile(), "domain.pddl").getPath());
+        planner.setProblem(file.getPath());
+        planner.setTimeout(runTimeout);
+        planner.setLogLevel(LogLevel.OFF);
+        DefaultParsedProblem parsed = planner.parse();
+        if (parsed == null) {
+            throw new IOException("Cannot parse " + file);
+        }
+        Problem problem = planner.instantiate(parsed);
+        List<MemoryPoolMXBean> pools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pools.add(pool);
+            }
+        }
+
+        // Échauffement par tours de toutes les graines, jusqu'à des temps stables
+        long warmupEnd = System.nanoTime() + this.warmupTime * 1_000_000_000L;
+        double previousMedian = Double.NaN;
+        int rounds = 0;
+        boolean stable = false;
+        while (!stable && (rounds == 0 || System.nanoTime() < warmupEnd)) {
+            double[] times = new double[runs];
+            int done = 0;
+            while (done < runs && (rounds == 0 || System.nanoTime() < warmupEnd)) {
+                times[done] = measure(planner, problem, done, runMinTime, pools).time;
+                done++;
+            }
+            if (done < runs) {
+                break;
+            }
+            double roundMedian = median(times);
+            stable = Math.abs(roundMedian - previousMedian) <= WARMUP_STABILITY * previousMedian;
+            previousMedian = roundMedian;
+            rounds++;
+        }
+        System.out.printf(Locale.ROOT, "%s %s: %d warm-up round(s), %s%n", problemFile, name, rounds,
+                stable ? "stable" : "stopped by --warmup-time");
+
+        List<Run> results = new ArrayList<>();
+        for (int seed = 0; seed < runs; seed++) {
+            Run run = measure(planner, problem, seed, runMinTime, pools);
+            results.add(run);
+            System.out.printf(Locale.ROOT, "%s %s seed %d: %s, %.0f walks/s, %.0f KB peak heap%n", problemFile,
+                    name, seed,
+                    run.solved ? Planners.format(run.length) + " actions in " + Planners.format(run.time) + " ms"
+                            : "no plan",
+                    run.walksPerSecond, run.peakHeap);
+        }
+        return results;
+    }
+
+    /**
+     * Mesure une exécution, répétée jusqu'à durer au moins
+     * <code>minTime</code> ms : le temps est la moyenne des répétitions, le
+     * débit de marches est calculé sur toutes les répétitions et le pic du tas
+     * est le plus grand des répétitions.
+     */
+    private static Run measure(AbstractPlanner planner, Problem problem, int seed, int minTime,
+            List<MemoryPoolMXBean> pools) {
+        System.gc();
+        pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Plan plan = null;
+        int repetitions = 0;
+        long walks = 0;
+        long begin = System.nanoTime();
+        double total;
+        do {
+            Planners.setSeed(planner, seed);
+            Plan repetition = Planners.solve(planner, problem);
+            if (repetitions == 0) {
+                plan = repetition;
+            }
+            walks += Planners.walkCount(planner);
+            repetitions++;
+            total = (System.nanoTime() - begin) / 1e6;
+        } while (total < minTime);
+        long peak = 0;
+        for (MemoryPoolMXBean pool : pools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        boolean hasWalks = Planners.walkCount(planner) >= 0;
+        return new Run(plan != null, total / repetitions, plan != null ? plan.size() : 0,
+                hasWalks && total >= RATE_MIN_TIME ? walks * 1000.0 / total : -1, peak / 1024.0);
+    }
+
+    /**
+     * Compare les exécutions d'un couple (planner, problème) et affiche le
+     * diff.
+     *
+     * @return le nombre de mesures en régression.
+     */
+    private int compare(String key, List<Run> before, List<Run> after) {
+        String[] parts = key.split(";");
+        System.out.printf(Locale.ROOT, "%s %s: solved %d/%d -> %d/%d%n", parts[0], parts[1],
+                before.stream().filter(r -> r.solved).count(), before.size(),
+                after.stream().filter(r -> r.solved).count(), after.size());
+        int regressions = 0;
+        // Temps mesurés, y compris sans plan : ces exécutions s'arrêtent à la limite
+        // de marches et compter le délai à leur place masquerait leurs régressions
+        regressions += this.compare("time (ms)", values(before, r -> r.time), values(after, r -> r.time), true,
+                TIME_SLACK, true);
+        this.compare("plan length", values(before, r -> r.solved ? r.length : Double.NaN),
+                values(after, r -> r.solved ? r.length : Double.NaN), true, 0, false);
+        regressions += this.compare("walks/s", values(before, r -> r.walksPerSecond),
+                values(after, r -> r.walksPerSecond), false, 0, true);
+        regressions += this.compare("peak heap (KB)", values(before, r -> r.peakHeap),
+                values(after, r -> r.peakHeap), true, 0, true);
+        return regressions;
+    }
+
+    /**
+     * Compare une mesure et affiche une ligne du diff.
+     *
+     * @param higherIsWorse <code>true</code> si une valeur plus grande est une
+     *                      dégradation.
+     * @param slack         écart absolu minimal des médianes d'une régression,
+     *                      relevé à l'écart interquartile de la référence.
+     * @param checked       <code>false</code> pour une mesure seulement affichée.
+     * @return 1 si la mesure est en régression, 0 sinon.
+     */
+    private int compare(String measure, double[] before, double[] after, boolean higherIsWorse, double slack,
+            boolean checked) {
+        if (before.length == 0 || after.length == 0) {
+            return 0;
+        }
+        double medianBefore = median(before);
+        double medianAfter = median(after);
+        // L'écart toléré suit la dispersion des valeurs de la référence
+        double tolerated = Math.max(slack, interquartileRange(before));
+        double change = medianBefore != 0 ? medianAfter / medianBefore - 1 : 0;
+        // Probabilité que les nouvelles valeurs soient dégradées par hasard
+        double p = higherIsWorse ? mannWhitneyGreater(after, before) : mannWhitneyGreater(before, after);
+        boolean degraded = Math.abs(medianAfter - medianBefore) > tolerated && (higherIsWorse ? change > this.tolerance
+                : medianAfter < medianBefore / (1 + this.tolerance));
+        boolean regression = checked && degraded && p < this.alpha;
+        System.out.printf(Locale.ROOT, "    %-15s median %s -> %s (%+.1f%%, p=%.3f)%s%n", measure,
+                Planners.format(medianBefore), Planners.format(medianAfter), 100 * change, p,
+                regression ? "  REGRESSION" : "");
+        return regression ? 1 : 0;
+    }
+
+    /**
+     * Test de Mann-Whitney unilatéral : probabilité d'observer une statistique
+     * U au moins aussi grande si les valeurs de <code>x</code> ne sont pas
+     * stochastiquement plus grandes que celles de <code>y</code>.
+     */
+    private static double mannWhitneyGreater(double[] x, double[] y) {
+        int m = x.length;
+        int n = y.length;
+        double u = 0;
+        for (double a : x) {
+            for (double b : y) {
+                u += a > b ? 1 : a == b ? 0.5 : 0;
+            }
+        }
+        // Correction des ex aequo : somme des t^3 - t sur les groupes de valeurs égales
+        double[] all = new double[m + n];
+        System.arraycopy(x, 0, all, 0, m);
+        System.arraycopy(y, 0, all, m, n);
+        Arrays.sort(all);
+        double ties = 0;
+        for (int i = 0; i < all.length;) {
+            int j = i;
+            while (j < all.length && all[j] == all[i]) {
+                j++;
+            }
+            double t = j - i;
+            ties += t * t * t - t;
+            i = j;
+        }
+        int total = m + n;
+        double variance = m * n / 12.0 * ((total + 1) - ties / (total * (total - 1.0)));
+        if (variance <= 0) {
+            return 1;
+        }
+        double z = (u - m * n / 2.0 - 0.5) / Math.sqrt(variance);
+        return 1 - phi(z);
+    }
+
+    /**
+     * Fonction de répartition de la loi normale centrée réduite
+     * (approximation d'Abramowitz et Stegun 7.1.26, erreur &lt; 1.5e-7).
+     */
+    private static double phi(double z) {
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + 0.3275911 * x);
+        double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t
+                + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+
+    /**
+     * Écart interquartile, entre les valeurs de rangs n / 4 et 3n / 4.
+     */
+    private static double interquartileRange(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        return sorted[(3 * n) / 4 < n ? (3 * n) / 4 : n - 1] - sorted[n / 4];
+    }
+
+    /**
+     * Décrit la machine : nom, système, architecture et nombre de processeurs.
+     */
+    private static String host() {
+        String name;
+        try {
+            name = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            name = "unknown";
+        }
+        return name + " " + System.getProperty("os.name") + " " + System.getProperty("os.arch") + " "
+                + Runtime.getRuntime().availableProcessors() + " cpus";
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    /**
+     * Extrait une mesure des exécutions, sans les valeurs absentes (NaN ou
+     * négatives).
+     */
+    private static double[] values(List<Run> runs, ToDoubleFunction<Run> measure) {
+        return runs.stream().mapToDouble(measure).filter(v -> !Double.isNaN(v) && v >= 0).toArray();
+    }
+
+    private void write(Map<String, List<Run>> runs) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.baseline, false))) {
+            writer.write("# format: " + FORMAT + "\n");
+            writer.write("# recorded: " + Instant.now() + "\n");
+            writer.write("# host: " + host() + "\n");
+            writer.write("# java: " + System.getProperty("java.version") + "\n");
+            writer.write("# seeds: " + this.seeds + "\n");
+            writer.write("# timeout: " + this.timeout + "\n");
+            writer.write("# min-time: " + this.minTime + "\n");
+            writer.write(HEADER);
+            for (Map.Entry<String, List<Run>> entry : runs.entrySet()) {
+                List<Run> list = entry.getValue();
+                for (int seed = 0; seed < list.size(); seed++) {
+                    Run run = list.get(seed);
+                    writer.write("\n" + entry.getKey() + ";" + seed + ";" + (run.solved ? 1 : 0) + ";"
+                            + Planners.format(run.time) + ";" + Planners.format(run.length) + ";"
+                            + Planners.format(run.walksPerSecond) + ";" + Planners.format(run.peakHeap));
+                }
+            }
+            writer.write("\n");
+        }
+    }
+
+    /**
+     * Lit le fichier de référence.
+     *
+     * @param header reçoit les valeurs de l'en-tête.
+     * @return les exécutions par couple (problème, planner), ou null si le
+     *         fichier est absent ou dans un autre format.
+     */
+    private Map<String, List<Run>> read(Map<String, String> header) throws IOException {
+        if (!this.baseline.isFile()) {
+            System.err.println("No baseline " + this.baseline + ", record one with --record");
+            return null;
+        }
+        Map<String, List<Run>> runs = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(this.baseline))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    int colon = line.indexOf(':');
+                    header.put(line.substring(1, colon).trim(), line.substring(colon + 1).trim());
+                } else if (!line.isEmpty() && !line.equals(HEADER)) {
+                    String[] cells = line.split(";");
+                    runs.computeIfAbsent(cells[0] + ";" + cells[1], k -> new ArrayList<>())
+                            .add(new Run(cells[3].equals("1"), Double.parseDouble(cells[4]),
+                                    Double.parseDouble(cells[5]), Double.parseDouble(cells[6]),
+                                    Double.parseDouble(cells[7])));
+                }
+            }
+        }
+        if (!String.valueOf(FORMAT).equals(header.get("format")) || !header.containsKey("seeds")
+                || !header.containsKey("timeout") || !header.containsKey("min-time")) {
+            System.err.println("Baseline " + this.baseline + " is not in format " + FORMAT + ", record it again");
+            return null;
+        }
+        return runs;
+    }
+
+    /**
+     * The main method of the performance suite.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new PerformanceSuite()).execute(args));
+    }
+}
@@ -0,0 +1,327 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.parser.DefaultParsedProblem;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.LogLevel;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.problem.operator.Effect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import picocli.CommandLine;
+
+/**
+ * Vérification des plans retournés par les planners du package.
+ * <p>
+ * Chaque configuration (planner et options) est exécutée sur les problèmes
+ * p01 à p03 des domaines du dépôt (p01 et p02 pour nomystery) avec les graines 0 .. n - 1, et chaque plan
+ * est rejoué sur le problème instancié, indépendamment du code des planners :
+ * chaque action doit être une action du problème dont la précondition est
+ * vraie, ses effets conditionnels sont évalués dans l'état avant l'action, les
+ * retraits sont appliqués avant les ajouts, et le but doit être vrai à la fin.
+ * Les configurations couvrent les chemins qui construisent un plan autrement
+ * qu'en suivant une marche : la jonction avec un état partiel régressé
+ * (<code>--bidirectional</code>), l'extraction d'un plan à travers les formes
+ * canoniques (<code>--symmetry</code>) et les actions élaguées
+ * (<code>--prune</code>).
+ * </p>
+ * <p>
+ * Un état traversé par un plan valide n'est jamais une impasse : chaque état
+ * du plan est donc aussi soumis à <code>DeadEnds</code>, qui ne doit en
+ * signaler aucun. Un planner aléatoire peut ne pas trouver de plan dans sa
+ * limite de marches, ce n'est pas une erreur ; HSP est complet et doit
+ * résoudre tous les problèmes. Enfin, MyPlannerImprove enregistre avec
+ * <code>--priors</code> les statistiques de ses marches sur nomystery, un
+ * domaine à impasses, et les a priori rechargés doivent différer d'un schéma à
+ * l'autre. Code de sortie : 0 si tout est correct, 1 sinon.
+ * </p>
+ */
+@CommandLine.Command(name = "PlanCheck", description = "Runs the planners on small problems and validates the returned plans.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+public class PlanCheck implements Callable<Integer> {
+
+    /**
+     * Problèmes vérifiés, relatifs à la racine du dépôt.
+     */
+    private static final String[] PROBLEMS = { "blocks/p001.pddl", "blocks/p002.pddl", "blocks/p003.pddl",
+        "gripper/p01.pddl", "gripper/p02.pddl", "gripper/p03.pddl", "logistics/p01.pddl", "logistics/p02.pddl",
+        "logistics/p03.pddl", "depots/p01.pddl", "depots/p02.pddl", "depots/p03.pddl", "nomystery/p01.pddl",
+        "nomystery/p02.pddl" };
+
+    /**
+     * Problème du contrôle des a priori de <code>--priors</code> : nomystery a
+     * des impasses (carburant épuisé), que <code>--dead-ends</code> détecte.
+     */
+    private static final String PRIORS_PROBLEM = "nomystery/p01.pddl";
+
+    private static final String PRIORS_CHECK = "IMPROVE --priors";
+
+    /**
+     * Configurations vérifiées.
+     */
+    private static final List<Configuration> CONFIGURATIONS = List.of(
+            new Configuration("MRW", MyPlanner::new, false),
+            new Configuration("MRW --bidirectional", MyPlanner::new, false, "--bidirectional"),
+            new Configuration("MRW --symmetry", MyPlanner::new, false, "--symmetry"),
+            new Configuration("MRW --landmarks --prune", MyPlanner::new, false, "--landmarks", "--prune"),
+            new Configuration("IMPROVE --dead-ends", MyPlannerImprove::new, false, "--dead-ends"),
+            new Configuration("IMPROVE --symmetry", MyPlannerImprove::new, false, "--symmetry"),
+            new Configuration("EHC", MyPlannerEHC::new, false),
+            new Configuration("UCT --landmarks", MyPlannerUCT::new, false, "--landmarks"),
+            new Configuration("HSP --compact", HSP::new, true, "--compact"),
+            new Configuration("HSP --symmetry", HSP::new, true, "--symmetry"),
+            new Configuration("HSP --prune --symmetry", HSP::new, true, "--prune", "--symmetry"));
+
+    @CommandLine.Option(names = {
+            "--root" }, defaultValue = ".", paramLabel = "<directory>", description = "Set the directory of the domain directories (preset .).")
+    private File root;
+
+    @CommandLine.Option(names = { "-n",
+            "--seeds" }, defaultValue = "2", paramLabel = "<seeds>", description = "Set the number of seeds of the random planners (preset 2).")
+    private int seeds;
+
+    @CommandLine.Option(names = { "-t",
+            "--timeout" }, defaultValue = "10", paramLabel = "<timeout>", description = "Set the timeout of each run in seconds (preset 10).")
+    private int timeout;
+
+    @CommandLine.Option(names = {
+            "--only" }, paramLabel = "<text>", description = "Only run the configurations whose name contains this text.")
+    private String only;
+
+    /**
+     * Un planner et ses options.
+     */
+    private static final class Configuration {
+
+        private final String name;
+        private final Supplier<AbstractPlanner> factory;
+        private final boolean complete;
+        private final String[] options;
+
+        private Configuration(String name, Supplier<AbstractPlanner> factory, boolean complete, String... options) {
+            this.name = name;
+            this.factory = factory;
+            this.complete = complete;
+            this.options = options;
+        }
+    }
+
+    /**
+     * Exécute toutes les configurations et vérifie les plans.
+     *
+     * @return le code de sortie.
+     * @throws IOException si un problème ne peut pas être lu.
+     */
+    @Override
+    public Integer call() throws IOException {
+        int runs = 0;
+        int solved = 0;
+        List<String> failures = new ArrayList<>();
+        for (String problemFile : PROBLEMS) {
+            File file = new File(this.root, problemFile);
+            for (Configuration configuration : CONFIGURATIONS) {
+                if (this.only != null && !configuration.name.contains(this.only)) {
+                    continue;
+                }
+                int configurationSeeds = configuration.complete ? 1 : this.seeds;
+                for (int seed = 0; seed < configurationSeeds; seed++) {
+                    String run = problemFile + " " + configuration.name
+                            + (configuration.complete ? "" : " seed " + seed);
+                    String error;
+                    try {
+                        error = this.check(configuration, file, seed);
+                    } catch (RuntimeException e) {
+                        error = e.toString();
+                    }
+                    runs++;
+                    if (error == null) {
+                        solved++;
+                        System.out.println(run + ": valid plan");
+                    } else if (error.isEmpty()) {
+                        System.out.println(run + ": no plan");
+                    } else {
+                        failures.add(run + ": " + error);
+                        System.out.println(run + ": FAILED, " + error);
+                    }
+                }
+            }
+        }
+        if (this.only == null || PRIORS_CHECK.contains(this.only)) {
+            String error = this.checkPriors();
+            if (error == null) {
+                System.out.println(PRIORS_PROBLEM + " " + PRIORS_CHECK + ": priors differ between schemas");
+            } else {
+                failures.add(PRIORS_PROBLEM + " " + PRIORS_CHECK + ": " + error);
+                System.out.println(PRIORS_PROBLEM + " " + PRIORS_CHECK + ": FAILED, " + error);
+            }
+        }
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%d runs, %d valid plans, %d failures%n", runs, solved, failures.size());
+        failures.forEach(System.out::println);
+        return failures.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Exécute une configuration sur un problème et vérifie le plan.
+     *
+     * @return null si le plan est valide, une chaîne vide si un planner
+     *         aléatoire n'a pas trouvé de plan, sinon la description de l'erreur.
+     */
+    private String check(Configuration configuration, File file, int seed) throws IOException {
+        AbstractPlanner planner = configuration.factory.get();
+        Problem problem = this.prepare(planner, configuration.options, file, seed);
+        Plan plan = Planners.solve(planner, problem);
+        if (plan == null) {
+            return configuration.complete ? "no plan from a complete planner" : "";
+        }
+        return validate(problem, plan.actions());
+    }
+
+    /**
+     * Vérifie que les statistiques enregistrées par <code>--priors</code> sur
+     * un domaine à impasses donnent des a priori différents selon les schémas :
+     * des a priori égaux ne biaiseraient pas MDA.
+     *
+     * @return null si les a priori diffèrent, sinon la description de l'erreur.
+     */
+    private String checkPriors() throws IOException {
+        File file = new File(this.root, PRIORS_PROBLEM);
+        Path stats = Files.createTempFile("domain-stats", ".properties");
+        try {
+            Problem problem = null;
+            for (int seed = 0; seed < this.seeds; seed++) {
+                AbstractPlanner planner = new MyPlannerImprove();
+                problem = this.prepare(planner, new String[] { "--dead-ends", "--priors=" + stats }, file, seed);
+                Planners.solve(planner, problem);
+            }
+            if (problem == null) {
+                return "no search run";
+            }
+            ActionSchemaStats priors = ActionSchemaStats.load(stats.toFile());
+            Map<String, Integer> bySchema = new TreeMap<>();
+            for (Action action : problem.getActions()) {
+                bySchema.putIfAbsent(action.getName(), priors.failurePrior(action));
+            }
+            if (new HashSet<>(bySchema.values()).size() < 2) {
+                return "same failure prior for every schema " + bySchema;
+            }
+            return null;
+        } finally {
+            Files.deleteIfExists(stats);
+        }
+    }
+
+    /**
+     * Configure un planner avec des options, un problème et une graine, et
+     * retourne le problème instancié.
+     */
+    private Problem prepare(AbstractPlanner planner, String[] options, File file, int seed) throws IOException {
+        List<String> args = new ArrayList<>(Arrays.asList(options));
+        args.addAll(List.of("-t", String.valueOf(this.timeout), new File(file.getParentFile(), "domain.pddl").getPath(),
+                file.getPath()));
+        new CommandLine(planner).parseArgs(args.toArray(new String[0]));
+        planner.setLogLevel(LogLevel.OFF);
+        Planners.setSeed(planner, seed);
+        DefaultParsedProblem parsed = planner.parse();
+        if (parsed == null) {
+            throw new IOException("Cannot parse " + file);
+        }
+        return planner.instantiate(parsed);
+    }
+
+    /**
+     * Rejoue un plan sur un problème instancié et cherche les états du plan
+     * signalés à tort comme des impasses.
+     *
+     * @param problem le problème instancié.
+     * @param plan    les actions du plan.
+     * @return null si le plan est valide, sinon la description de l'erreur.
+     */
+    static String validate(Problem problem, List<Action> plan) {
+        Map<Action, Boolean> known = new IdentityHashMap<>();
+        for (Action action : problem.getActions()) {
+            known.put(action, Boolean.TRUE);
+        }
+        DeadEnds deadEnds = DeadEnds.analyse(problem, problem.getActions());
+        State state = new State(problem.getInitialState());
+        for (int step = 0; step < plan.size(); step++) {
+            if (deadEnds.isDeadEnd(state)) {
+                return "state " + step + " flagged as a dead end";
+            }
+            Action action = plan.get(step);
+            if (!known.containsKey(action)) {
+                return "step " + step + " (" + action.getName() + ") is not an action of the problem";
+            }
+            if (!state.satisfy(action.getPrecondition())) {
+                return "step " + step + " (" + describe(problem, action) + ") is not applicable";
+            }
+            state = successor(state, action);
+        }
+        if (!state.satisfy(problem.getGoal())) {
+            return "goal not reached after " + plan.size() + " actions";
+        }
+        return null;
+    }
+
+    private static String describe(Problem problem, Action action) {
+        StringBuilder description = new StringBuilder(action.getName());
+        for (int arg : action.getInstantiations()) {
+            description.append(' ').append(problem.getConstantSymbols().get(arg));
+        }
+        return description.toString();
+    }
+
+    /**
+     * Applique une action : les effets dont la condition est vraie dans l'état
+     * avant l'action, retraits puis ajouts.
+     */
+    private static State successor(State state, Action action) {
+        List<Effect> effects = new ArrayList<>(Collections.singletonList(action.getUnconditionalEffect()));
+        for (ConditionalEffect effect : action.getConditionalEffects()) {
+            if (state.satisfy(effect.getCondition())) {
+                effects.add(effect.getEffect());
+            }
+        }
+        State next = new State(state);
+        for (Effect effect : effects) {
+            BitVector negative = effect.getNegativeFluents();
+            for (int f = negative.nextSetBit(0); f >= 0; f = negative.nextSetBit(f + 1)) {
+                next.clear(f);
+            }
+        }
+        for (Effect effect : effects) {
+            BitVector positive = effect.getPositiveFluents();
+            for (int f = positive.nextSetBit(0); f >= 0; f = positive.nextSetBit(f + 1)) {
+                next.set(f);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Exécute la vérification.
+     *
+     * @param args les options de la ligne de commande.
+     */
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new PlanCheck()).execute(args));
+    }
+}
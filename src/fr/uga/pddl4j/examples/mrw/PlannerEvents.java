@@ -0,0 +1,149 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Événements Java Flight Recorder des planners.
+ * <p>
+ * Ils ne coûtent presque rien tant que la recherche n'est pas enregistrée :
+ * <code>commit()</code> ne fait rien si l'événement est désactivé. Pour les
+ * enregistrer, lancer la JVM avec par exemple
+ * <code>-XX:StartFlightRecording=filename=mrw.jfr,settings=profile</code> puis
+ * ouvrir le fichier avec JDK Mission Control ou <code>jfr print --categories
+ * MRW mrw.jfr</code>.
+ * </p>
+ */
+final class PlannerEvents {
+
+    /**
+     * Nombre de marches regroupées dans un événement <code>WalkBatch</code>.
+     */
+    static final int WALK_BATCH = 100;
+
+    private PlannerEvents() {
+    }
+
+    /**
+     * Une phase d'une exécution : instanciation, recherche, écriture des
+     * résultats.
+     */
+    @Name("fr.uga.pddl4j.mrw.Phase")
+    @Label("Solve Phase")
+    @Category({ "PDDL4J", "MRW" })
+    @Description("A phase of a planner run: grounding, search or result file output.")
+    static final class Phase extends Event {
+
+        @Label("Planner")
+        String planner;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Parse Time (ms)")
+        @Description("Time spent by pddl4j to parse the domain and the problem, reported with the instantiate phase.")
+        long parseMillis;
+
+        @Label("Actions")
+        int actions;
+
+        @Label("Fluents")
+        int fluents;
+
+        @Label("Plan Length")
+        int planLength;
+
+        Phase(String planner, String phase) {
+            this.planner = planner;
+            this.phase = phase;
+        }
+    }
+
+    /**
+     * Un lot de marches aléatoires.
+     */
+    @Name("fr.uga.pddl4j.mrw.WalkBatch")
+    @Label("Walk Batch")
+    @Category({ "PDDL4J", "MRW" })
+    @Description("A batch of random walks with its counters.")
+    static final class WalkBatch extends Event {
+
+        @Label("Planner")
+        String planner;
+
+        @Label("Walks")
+        int walks;
+
+        @Label("Steps")
+        long steps;
+
+        @Label("Applicable Actions")
+        @Description("Sum over the steps of the number of applicable actions found by the filtering.")
+        long applicableActions;
+
+        @Label("Dead Ends")
+        int deadEnds;
+
+        @Label("Goal Reached")
+        boolean goalReached;
+
+        @Label("Best Heuristic Value")
+        double bestHeuristic;
+
+        @Label("MDA")
+        boolean mda;
+
+        @Label("MHA")
+        boolean mha;
+
+        WalkBatch(String planner) {
+            this.planner = planner;
+        }
+    }
+
+    /**
+     * Un saut vers un nouvel état de départ des marches.
+     */
+    @Name("fr.uga.pddl4j.mrw.Jump")
+    @Label("Jump")
+    @Category({ "PDDL4J", "MRW" })
+    @Description("The walks restart from a new state.")
+    static final class Jump extends Event {
+
+        @Label("Planner")
+        String planner;
+
+        @Label("Prefix Length")
+        int prefixLength;
+
+        @Label("Heuristic Value")
+        double heuristic;
+
+        Jump(String planner) {
+            this.planner = planner;
+        }
+    }
+
+    /**
+     * Une évaluation heuristique d'un état.
+     */
+    @Name("fr.uga.pddl4j.mrw.HeuristicEvaluation")
+    @Label("Heuristic Evaluation")
+    @Category({ "PDDL4J", "MRW" })
+    @Description("The evaluation of a state by a heuristic.")
+    static final class HeuristicEvaluation extends Event {
+
+        @Label("Heuristic")
+        String heuristic;
+
+        @Label("Value")
+        double value;
+
+        HeuristicEvaluation(String heuristic) {
+            this.heuristic = heuristic;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.heuristics.state.StateHeuristic;
+import fr.uga.pddl4j.plan.Plan;
+import fr.uga.pddl4j.planners.AbstractPlanner;
+import fr.uga.pddl4j.planners.ProblemNotSupportedException;
+import fr.uga.pddl4j.problem.Problem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import picocli.CommandLine;
+
+/**
+ * Outils communs aux programmes qui exécutent les planners du package dans la
+ * même JVM (<code>MultiSeedEvaluation</code>, <code>PerformanceSuite</code>,
+ * etc.) : création par nom, graine, nombre de marches et écriture des mesures,
+ * ainsi que la lecture des arguments positionnels des lignes de commande.
+ */
+final class Planners {
+
+    private Planners() {
+    }
+
+    /**
+     * Crée un planner à partir de son nom : MRW (<code>MyPlanner</code>),
+     * IMPROVE (<code>MyPlannerImprove</code>) ou HSP (A* avec l'heuristique FF).
+     *
+     * @param name le nom du planner, sans tenir compte de la casse.
+     * @return le planner.
+     * @throws IllegalArgumentException si le nom est inconnu.
+     */
+    static AbstractPlanner newPlanner(String name) {
+        switch (name.toUpperCase(Locale.ROOT)) {
+            case "MRW":
+                return new MyPlanner();
+            case "IMPROVE":
+                return new MyPlannerImprove();
+            case "HSP":
+                HSP planner = new HSP();
+                planner.setHeuristic(StateHeuristic.Name.FAST_FORWARD);
+                planner.setHeuristicWeight(1.0);
+                return planner;
+            default:
+                throw new IllegalArgumentException("Unknown planner " + name);
+        }
+    }
+
+    /**
+     * Fixe la graine des marches d'un planner aléatoire ; sans effet sur les
+     * autres planners.
+     *
+     * @param planner le planner.
+     * @param seed    la graine.
+     */
+    static void setSeed(AbstractPlanner planner, long seed) {
+        if (planner instanceof MyPlanner) {
+            ((MyPlanner) planner).setSeed(seed);
+        } else if (planner instanceof MyPlannerImprove) {
+            ((MyPlannerImprove) planner).setSeed(seed);
+        } else if (planner instanceof MyPlannerEHC) {
+            ((MyPlannerEHC) planner).setSeed(seed);
+        } else if (planner instanceof MyPlannerUCT) {
+            ((MyPlannerUCT) planner).setSeed(seed);
+        } else if (planner instanceof DistributedMRW) {
+            ((DistributedMRW) planner).setSeed(seed);
+        }
+    }
+
+    /**
+     * Retourne le nombre de marches de la dernière recherche, ou -1 pour un
+     * planner sans marches.
+     *
+     * @param planner le planner.
+     * @return le nombre de marches ou -1.
+     */
+    static int walkCount(AbstractPlanner planner) {
+        if (planner instanceof MyPlanner) {
+            return ((MyPlanner) planner).getWalkCount();
+        } else if (planner instanceof MyPlannerImprove) {
+            return ((MyPlannerImprove) planner).getWalkCount();
+        }
+        return -1;
+    }
+
+    /**
+     * Retourne les indices des arguments positionnels : les arguments qui ne
+     * sont ni une option ni la valeur d'une option (<code>--seed 42</code>).
+     *
+     * @param cmd  la ligne de commande du planner.
+     * @param args les arguments de la ligne de commande.
+     * @return les indices des arguments positionnels, dans l'ordre.
+     */
+    static List<Integer> positionals(CommandLine cmd, String[] args) {
+        List<Integer> positionals = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--".equals(args[i])) {
+                for (int j = i + 1; j < args.length; j++) {
+                    positionals.add(j);
+                }
+                break;
+            } else if (args[i].startsWith("-") && args[i].length() > 1) {
+                String name = args[i].contains("=") ? args[i].substring(0, args[i].indexOf('=')) : args[i];
+                CommandLine.Model.OptionSpec option = cmd.getCommandSpec().findOption(name);
+                if (option != null && option.arity().min() > 0 && name.equals(args[i])) {
+                    i++;
+                }
+            } else {
+                positionals.add(i);
+            }
+        }
+        return positionals;
+    }
+
+    /**
+     * Résout un problème déjà instancié.
+     *
+     * @param planner le planner.
+     * @param problem le problème instancié.
+     * @return le plan trouvé, ou null si aucun plan n'a été trouvé ou si le
+     *         problème n'est pas accepté par le planner.
+     */
+    static Plan solve(AbstractPlanner planner, Problem problem) {
+        try {
+            return planner.solve(problem);
+        } catch (ProblemNotSupportedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Écrit une mesure : entière sans décimale, sinon avec trois décimales et
+     * un point.
+     *
+     * @param value la mesure.
+     * @return la mesure écrite.
+     */
+    static String format(double value) {
+        if (value == Math.rint(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
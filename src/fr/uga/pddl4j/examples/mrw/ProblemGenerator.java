@@ -0,0 +1,424 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+
+/**
+ * Générateur d'instances PDDL de taille paramétrable pour les quatre domaines
+ * du projet.
+ * <p>
+ * La taille principale (<code>--size</code>, ou chaque taille de
+ * <code>--sweep debut:fin[:pas]</code>) est le nombre de balles pour gripper,
+ * de blocs pour blocks, de paquets pour logistics et de caisses pour depots.
+ * Les autres paramètres (tours, villes, camions, avions, dépôts,
+ * distributeurs...) se fixent par option ; laissés à 0, ils sont déduits de la
+ * taille pour qu'un balayage fasse grossir toute l'instance. Chaque instance
+ * est tirée avec sa propre graine, déduite de <code>--seed</code> et de la
+ * taille : une taille donnée produit toujours le même fichier quel que soit le
+ * balayage. Les instances générées sont toujours solubles.
+ * </p>
+ * <p>
+ * Les fichiers sont écrits dans <code>generated/&lt;domaine&gt;</code> (ou
+ * <code>-o</code>) sous le nom <code>p&lt;taille&gt;.pddl</code>, avec une copie
+ * du <code>domain.pddl</code> du dossier du domaine, pour être utilisés
+ * directement par <code>MultiSeedEvaluation</code>.
+ * </p>
+ */
+@CommandLine.Command(name = "ProblemGenerator", description = "Generates PDDL instances of increasing size for the gripper, blocks, logistics and depots domains.", sortOptions = false, mixinStandardHelpOptions = true, headerHeading = "Usage:%n", synopsisHeading = "%n", descriptionHeading = "%nDescription:%n%n", parameterListHeading = "%nParameters:%n", optionListHeading = "%nOptions:%n")
+public class ProblemGenerator implements Callable<Integer> {
+
+    @CommandLine.Parameters(index = "0", paramLabel = "<domain>", description = "The domain: gripper, blocks, logistics or depots.")
+    private String domain;
+
+    @CommandLine.Option(names = { "-s",
+            "--size" }, defaultValue = "10", paramLabel = "<size>", description = "Set the main size: balls, blocks, packages or crates (preset 10).")
+    private int size;
+
+    @CommandLine.Option(names = {
+            "--sweep" }, paramLabel = "<from:to[:step]>", description = "Generate one instance for each size of the range, e.g. 10:100:10.")
+    private String sweep;
+
+    @CommandLine.Option(names = {
+            "--seed" }, defaultValue = "0", paramLabel = "<seed>", description = "Set the seed of the generator (preset 0).")
+    private long seed;
+
+    @CommandLine.Option(names = { "-o",
+            "--output" }, paramLabel = "<directory>", description = "Set the output directory (preset generated/<domain>).")
+    private File output;
+
+    @CommandLine.Option(names = {
+            "--towers" }, defaultValue = "0", paramLabel = "<towers>", description = "blocks: number of towers of the initial state (preset 0: random).")
+    private int towers;
+
+    @CommandLine.Option(names = {
+            "--cities" }, defaultValue = "0", paramLabel = "<cities>", description = "logistics: number of cities (preset 0: max(2, size / 4)).")
+    private int cities;
+
+    @CommandLine.Option(names = {
+            "--locations" }, defaultValue = "1", paramLabel = "<locations>", description = "logistics: number of non-airport locations per city (preset 1).")
+    private int locations;
+
+    @CommandLine.Option(names = {
+            "--trucks" }, defaultValue = "0", paramLabel = "<trucks>", description = "logistics: trucks, at least one per city; depots: trucks (preset 0: one per city in logistics, 2 in depots).")
+    private int trucks;
+
+    @CommandLine.Option(names = {
+            "--airplanes" }, defaultValue = "0", paramLabel = "<airplanes>", description = "logistics: number of airplanes (preset 0: max(1, cities / 4)).")
+    private int airplanes;
+
+    @CommandLine.Option(names = {
+            "--depots" }, defaultValue = "0", paramLabel = "<depots>", description = "depots: number of depots (preset 0: max(1, size / 5)).")
+    private int depots;
+
+    @CommandLine.Option(names = {
+            "--distributors" }, defaultValue = "0", paramLabel = "<distributors>", description = "depots: number of distributors (preset 0: max(2, size / 5)).")
+    private int distributors;
+
+    @CommandLine.Option(names = {
+            "--pallets" }, defaultValue = "0", paramLabel = "<pallets>", description = "depots: number of pallets, at least one per place (preset 0: one per place).")
+    private int pallets;
+
+    /**
+     * Génère les instances demandées.
+     *
+     * @return le code de sortie.
+     * @throws IOException si un fichier ne peut pas être écrit.
+     */
+    @Override
+    public Integer call() throws IOException {
+        String name = this.domain.toLowerCase(Locale.ROOT);
+        File directory = this.output != null ? this.output : new File("generated", name);
+        Files.createDirectories(directory.toPath());
+        File domainFile = new File(name, "domain.pddl");
+        if (domainFile.exists()) {
+            Files.copy(domainFile.toPath(), new File(directory, "domain.pddl").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            System.err.println("Domain file " + domainFile + " not found, only the problems are written");
+        }
+        for (int n : this.sizes()) {
+            // Graine propre à chaque taille : l'instance ne dépend pas du balayage
+            Random random = new Random(this.seed * 1_000_003L + n);
+            String problem;
+            switch (name) {
+                case "gripper":
+                    problem = this.gripper(n);
+                    break;
+                case "blocks":
+                    problem = this.blocks(n, random);
+                    break;
+                case "logistics":
+                    problem = this.logistics(n, random);
+                    break;
+                case "depots":
+                    problem = this.depots(n, random);
+                    break;
+                default:
+                    throw new CommandLine.ParameterException(new CommandLine(this), "Unknown domain " + this.domain);
+            }
+            File file = new File(directory, String.format(Locale.ROOT, "p%03d.pddl", n));
+            Files.write(file.toPath(), problem.getBytes(StandardCharsets.UTF_8));
+            System.out.println("Generated " + file);
+        }
+        return 0;
+    }
+
+    /**
+     * Retourne les tailles à générer.
+     */
+    private List<Integer> sizes() {
+        List<Integer> sizes = new ArrayList<>();
+        if (this.sweep == null) {
+            sizes.add(this.size);
+            return sizes;
+        }
+        String[] bounds = this.sweep.split(":");
+        if (bounds.length < 2 || bounds.length > 3) {
+            throw new CommandLine.ParameterException(new CommandLine(this), "Invalid sweep " + this.sweep);
+        }
+        int from = Integer.parseInt(bounds[0]);
+        int to = Integer.parseInt(bounds[1]);
+        int step = bounds.length == 3 ? Integer.parseInt(bounds[2]) : 1;
+        if (from < 1 || step < 1 || to < from) {
+            throw new CommandLine.ParameterException(new CommandLine(this), "Invalid sweep " + this.sweep);
+        }
+        for (int n = from; n <= to; n += step) {
+            sizes.add(n);
+        }
+        return sizes;
+    }
+
+    /**
+     * Gripper : toutes les balles dans rooma, à déplacer dans roomb.
+     */
+    private String gripper(int balls) {
+        StringBuilder pddl = new StringBuilder();
+        pddl.append("(define (problem gripper-").append(balls).append(")\n");
+        pddl.append("   (:domain gripper-typed)\n");
+        pddl.append("   (:objects rooma roomb - room\n            ");
+        for (int b = 1; b <= balls; b++) {
+            pddl.append(" ball").append(b);
+        }
+        pddl.append(" - ball)\n");
+        pddl.append("   (:init (at-robby rooma)\n          (free left)\n          (free right)");
+        for (int b = 1; b <= balls; b++) {
+            pddl.append("\n          (at ball").append(b).append(" rooma)");
+        }
+        pddl.append(")\n   (:goal (and");
+        for (int b = 1; b <= balls; b++) {
+            pddl.append("\n               (at ball").append(b).append(" roomb)");
+        }
+        pddl.append(")))\n");
+        return pddl.toString();
+    }
+
+    /**
+     * Blocks : configurations initiale et finale aléatoires.
+     */
+    private String blocks(int blocks, Random random) {
+        int initialTowers = this.towers > 0 ? Math.min(this.towers, blocks) : 1 + random.nextInt(blocks);
+        List<List<Integer>> initial = randomTowers(blocks, initialTowers, random);
+        // Moins de tours que de blocs pour que le but contienne au moins un (on x y)
+        List<List<Integer>> goal = randomTowers(blocks, 1 + random.nextInt(Math.max(1, blocks - 1)), random);
+
+        StringBuilder pddl = new StringBuilder();
+        pddl.append("(define (problem BLOCKS-").append(blocks).append('-').append(this.seed).append(")\n");
+        pddl.append("(:domain BLOCKS)\n(:objects");
+        for (int b = 1; b <= blocks; b++) {
+            pddl.append(" b").append(b);
+        }
+        pddl.append(" - block)\n(:INIT (HANDEMPTY)");
+        for (List<Integer> tower : initial) {
+            pddl.append("\n (ONTABLE b").append(tower.get(0)).append(')');
+            for (int i = 1; i < tower.size(); i++) {
+                pddl.append(" (ON b").append(tower.get(i)).append(" b").append(tower.get(i - 1)).append(')');
+            }
+            pddl.append(" (CLEAR b").append(tower.get(tower.size() - 1)).append(')');
+        }
+        pddl.append(")\n(:goal (AND");
+        for (List<Integer> tower : goal) {
+            for (int i = 1; i < tower.size(); i++) {
+                pddl.append(" (ON b").append(tower.get(i)).append(" b").append(tower.get(i - 1)).append(')');
+            }
+        }
+        pddl.append("))\n)\n");
+        return pddl.toString();
+    }
+
+    /**
+     * Répartit aléatoirement les blocs 1..n en un nombre donné de tours non vides
+     * (du bas vers le haut).
+     */
+    private static List<List<Integer>> randomTowers(int blocks, int count, Random random) {
+        List<Integer> order = new ArrayList<>();
+        for (int b = 1; b <= blocks; b++) {
+            order.add(b);
+        }
+        Collections.shuffle(order, random);
+        List<List<Integer>> towers = new ArrayList<>();
+        for (int t = 0; t < count; t++) {
+            towers.add(new ArrayList<>());
+            towers.get(t).add(order.get(t));
+        }
+        for (int i = count; i < blocks; i++) {
+            towers.get(random.nextInt(count)).add(order.get(i));
+        }
+        return towers;
+    }
+
+    /**
+     * Logistics : un aéroport et des lieux par ville, au moins un camion par
+     * ville, paquets placés et livrés au hasard.
+     */
+    private String logistics(int packages, Random random) {
+        int nbCities = this.cities > 0 ? this.cities : Math.max(2, packages / 4);
+        int nbTrucks = Math.max(nbCities, this.trucks);
+        int nbAirplanes = this.airplanes > 0 ? this.airplanes : Math.max(1, nbCities / 4);
+        int nbLocations = Math.max(0, this.locations);
+
+        // Lieux de chaque ville : l'aéroport d'abord
+        List<List<String>> places = new ArrayList<>();
+        for (int c = 1; c <= nbCities; c++) {
+            List<String> cityPlaces = new ArrayList<>();
+            cityPlaces.add("apt" + c);
+            for (int l = 1; l <= nbLocations; l++) {
+                cityPlaces.add("pos" + c + "-" + l);
+            }
+            places.add(cityPlaces);
+        }
+
+        StringBuilder pddl = new StringBuilder();
+        pddl.append("(define (problem logistics-").append(packages).append('-').append(this.seed).append(")\n");
+        pddl.append("(:domain logistics)\n(:objects\n");
+        appendObjects(pddl, "apn", nbAirplanes, "airplane");
+        pddl.append(" ");
+        for (int c = 1; c <= nbCities; c++) {
+            pddl.append(" apt").append(c);
+        }
+        pddl.append(" - airport\n");
+        if (nbLocations > 0) {
+            pddl.append(" ");
+            for (List<String> cityPlaces : places) {
+                for (String place : cityPlaces.subList(1, cityPlaces.size())) {
+                    pddl.append(' ').append(place);
+                }
+            }
+            pddl.append(" - location\n");
+        }
+        appendObjects(pddl, "cit", nbCities, "city");
+        appendObjects(pddl, "tru", nbTrucks, "truck");
+        appendObjects(pddl, "obj", packages, "package");
+        pddl.append(")\n\n(:init");
+        for (int c = 0; c < nbCities; c++) {
+            for (String place : places.get(c)) {
+                pddl.append("\n (in-city ").append(place).append(" cit").append(c + 1).append(')');
+            }
+        }
+        for (int a = 1; a <= nbAirplanes; a++) {
+            pddl.append("\n (at apn").append(a).append(" apt").append(1 + random.nextInt(nbCities)).append(')');
+        }
+        for (int t = 1; t <= nbTrucks; t++) {
+            // Les premiers camions couvrent chaque ville, les suivants sont placés au hasard
+            List<String> cityPlaces = places.get(t <= nbCities ? t - 1 : random.nextInt(nbCities));
+            pddl.append("\n (at tru").append(t).append(' ')
+                    .append(cityPlaces.get(random.nextInt(cityPlaces.size()))).append(')');
+        }
+        for (int p = 1; p <= packages; p++) {
+            pddl.append("\n (at obj").append(p).append(' ').append(randomPlace(places, random)).append(')');
+        }
+        pddl.append(")\n\n(:goal (and");
+        for (int p = 1; p <= packages; p++) {
+            pddl.append("\n (at obj").append(p).append(' ').append(randomPlace(places, random)).append(')');
+        }
+        pddl.append("))\n)\n");
+        return pddl.toString();
+    }
+
+    private static String randomPlace(List<List<String>> places, Random random) {
+        List<String> cityPlaces = places.get(random.nextInt(places.size()));
+        return cityPlaces.get(random.nextInt(cityPlaces.size()));
+    }
+
+    private static void appendObjects(StringBuilder pddl, String prefix, int count, String type) {
+        pddl.append(" ");
+        for (int i = 1; i <= count; i++) {
+            pddl.append(' ').append(prefix).append(i);
+        }
+        pddl.append(" - ").append(type).append('\n');
+    }
+
+    /**
+     * Depots : une grue par lieu, au moins une palette par lieu, caisses empilées
+     * au hasard sur les palettes ; le but porte sur une partie des caisses d'une
+     * autre configuration aléatoire.
+     */
+    private String depots(int crates, Random random) {
+        int nbDepots = this.depots > 0 ? this.depots : Math.max(1, crates / 5);
+        int nbDistributors = this.distributors > 0 ? this.distributors : Math.max(2, crates / 5);
+        int nbPlaces = nbDepots + nbDistributors;
+        int nbTrucks = this.trucks > 0 ? this.trucks : 2;
+        int nbPallets = Math.max(nbPlaces, this.pallets);
+        String[] places = new String[nbPlaces];
+        for (int p = 0; p < nbPlaces; p++) {
+            places[p] = p < nbDepots ? "depot" + p : "distributor" + (p - nbDepots);
+        }
+        // La palette i est au lieu i pour les premières, au hasard ensuite
+        int[] palletPlace = new int[nbPallets];
+        for (int i = 0; i < nbPallets; i++) {
+            palletPlace[i] = i < nbPlaces ? i : random.nextInt(nbPlaces);
+        }
+
+        StringBuilder pddl = new StringBuilder();
+        pddl.append("(define (problem depot-").append(crates).append('-').append(this.seed)
+                .append(") (:domain Depot)\n(:objects\n\t");
+        for (int d = 0; d < nbDepots; d++) {
+            pddl.append(places[d]).append(' ');
+        }
+        pddl.append("- depot\n\t");
+        for (int d = nbDepots; d < nbPlaces; d++) {
+            pddl.append(places[d]).append(' ');
+        }
+        pddl.append("- distributor\n\t");
+        for (int t = 0; t < nbTrucks; t++) {
+            pddl.append("truck").append(t).append(' ');
+        }
+        pddl.append("- truck\n\t");
+        for (int i = 0; i < nbPallets; i++) {
+            pddl.append("pallet").append(i).append(' ');
+        }
+        pddl.append("- pallet\n\t");
+        for (int c = 0; c < crates; c++) {
+            pddl.append("crate").append(c).append(' ');
+        }
+        pddl.append("- crate\n\t");
+        for (int p = 0; p < nbPlaces; p++) {
+            pddl.append("hoist").append(p).append(' ');
+        }
+        pddl.append("- hoist)\n(:init");
+        for (int i = 0; i < nbPallets; i++) {
+            pddl.append("\n\t(at pallet").append(i).append(' ').append(places[palletPlace[i]]).append(')');
+        }
+        for (int t = 0; t < nbTrucks; t++) {
+            pddl.append("\n\t(at truck").append(t).append(' ').append(places[random.nextInt(nbPlaces)]).append(')');
+        }
+        for (int p = 0; p < nbPlaces; p++) {
+            pddl.append("\n\t(at hoist").append(p).append(' ').append(places[p]).append(")\n\t(available hoist")
+                    .append(p).append(')');
+        }
+        // Empilement initial : chaque caisse va sur le sommet d'une pile choisie au hasard
+        String[] top = new String[nbPallets];
+        for (int i = 0; i < nbPallets; i++) {
+            top[i] = "pallet" + i;
+        }
+        for (int c = 0; c < crates; c++) {
+            int pallet = random.nextInt(nbPallets);
+            pddl.append("\n\t(at crate").append(c).append(' ').append(places[palletPlace[pallet]]).append(")\n\t(on crate")
+                    .append(c).append(' ').append(top[pallet]).append(')');
+            top[pallet] = "crate" + c;
+        }
+        for (String surface : top) {
+            pddl.append("\n\t(clear ").append(surface).append(')');
+        }
+        pddl.append("\n)\n\n(:goal (and");
+        // Configuration finale aléatoire, dont on garde environ deux caisses sur trois
+        List<Integer> order = new ArrayList<>();
+        for (int c = 0; c < crates; c++) {
+            order.add(c);
+        }
+        Collections.shuffle(order, random);
+        for (int i = 0; i < nbPallets; i++) {
+            top[i] = "pallet" + i;
+        }
+        boolean empty = true;
+        for (int c : order) {
+            int pallet = random.nextInt(nbPallets);
+            if (random.nextInt(3) > 0 || (empty && c == order.get(order.size() - 1))) {
+                pddl.append("\n\t\t(on crate").append(c).append(' ').append(top[pallet]).append(')');
+                empty = false;
+            }
+            top[pallet] = "crate" + c;
+        }
+        pddl.append("\n\t)\n))\n");
+        return pddl.toString();
+    }
+
+    /**
+     * The main method of the generator.
+     *
+     * @param args the arguments of the command line.
+     */
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new ProblemGenerator()).execute(args));
+    }
+}
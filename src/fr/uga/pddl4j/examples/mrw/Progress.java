@@ -0,0 +1,178 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Flux d'événements de progression au format JSON Lines.
+ * <p>
+ * Chaque ligne est un objet JSON qui contient au moins le type d'événement
+ * (<code>event</code>), le nom du planner et le temps écoulé depuis le début
+ * de la recherche en millisecondes, suivis des champs propres à l'événement.
+ * Les événements périodiques (<code>progress</code>) ne sont écrits que si
+ * l'intervalle choisi est écoulé ; les autres (activation de MDA ou MHA, plan
+ * trouvé, échec) sont écrits immédiatement. Un flux désactivé ne fait rien, ce
+ * qui permet aux planners de l'appeler sans tester l'option.
+ * </p>
+ */
+final class Progress implements AutoCloseable {
+
+    /**
+     * The class logger.
+     */
+    private static final Logger LOGGER = LogManager.getLogger(Progress.class.getName());
+
+    private final PrintWriter output;
+    private final boolean closeOutput;
+    private final String planner;
+    private final long intervalNanos;
+    private final long start;
+    private long next;
+
+    private Progress(PrintWriter output, boolean closeOutput, String planner, long intervalMillis) {
+        this.output = output;
+        this.closeOutput = closeOutput;
+        this.planner = planner;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+        this.start = System.nanoTime();
+        this.next = this.start + this.intervalNanos;
+    }
+
+    /**
+     * Ouvre un flux de progression.
+     *
+     * @param target         le fichier de sortie, "-" pour la sortie standard ou
+     *                       null pour un flux désactivé.
+     * @param intervalMillis l'intervalle entre deux événements périodiques.
+     * @param planner        le nom du planner écrit dans chaque événement.
+     * @return le flux de progression.
+     */
+    static Progress open(String target, long intervalMillis, String planner) {
+        if (target == null) {
+            return new Progress(null, false, planner, intervalMillis);
+        }
+        if (target.equals("-")) {
+            return new Progress(new PrintWriter(System.out, true), false, planner, intervalMillis);
+        }
+        try {
+            PrintWriter output = new PrintWriter(
+                    new OutputStreamWriter(new FileOutputStream(target, true), StandardCharsets.UTF_8), true);
+            return new Progress(output, true, planner, intervalMillis);
+        } catch (IOException e) {
+            LOGGER.error("* Cannot open the progress file {}: {}\n", target, e.getMessage());
+            return new Progress(null, false, planner, intervalMillis);
+        }
+    }
+
+    /**
+     * Indique si le flux est actif.
+     *
+     * @return <code>true</code> si les événements sont écrits.
+     */
+    boolean isEnabled() {
+        return this.output != null;
+    }
+
+    /**
+     * Indique si un événement périodique doit être écrit maintenant.
+     *
+     * @return <code>true</code> si l'intervalle est écoulé.
+     */
+    boolean isDue() {
+        return this.output != null && System.nanoTime() >= this.next;
+    }
+
+    /**
+     * Retourne le temps écoulé depuis l'ouverture du flux.
+     *
+     * @return le temps écoulé en millisecondes.
+     */
+    long elapsedMillis() {
+        return (System.nanoTime() - this.start) / 1_000_000L;
+    }
+
+    /**
+     * Écrit un événement périodique et repousse la prochaine échéance.
+     *
+     * @param fields les paires nom, valeur de l'événement.
+     */
+    void progress(Object... fields) {
+        this.next = System.nanoTime() + this.intervalNanos;
+        this.event("progress", fields);
+    }
+
+    /**
+     * Écrit immédiatement un événement.
+     *
+     * @param type   le type de l'événement.
+     * @param fields les paires nom, valeur de l'événement.
+     */
+    void event(String type, Object... fields) {
+        if (this.output == null) {
+            return;
+        }
+        StringBuilder line = new StringBuilder(128);
+        line.append("{\"event\":");
+        appendValue(line, type);
+        line.append(",\"planner\":");
+        appendValue(line, this.planner);
+        line.append(",\"elapsed_ms\":").append(this.elapsedMillis());
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(',');
+            appendValue(line, String.valueOf(fields[i]));
+            line.append(':');
+            appendValue(line, fields[i + 1]);
+        }
+        line.append('}');
+        this.output.println(line);
+    }
+
+    private static void appendValue(StringBuilder line, Object value) {
+        if (value == null) {
+            line.append("null");
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            // Double.MAX_VALUE sert de valeur initiale « aucune valeur » dans les planners
+            if (Double.isNaN(d) || Double.isInfinite(d) || d == Double.MAX_VALUE) {
+                line.append("null");
+            } else {
+                line.append(d);
+            }
+        } else if (value instanceof Number || value instanceof Boolean) {
+            line.append(value);
+        } else {
+            line.append('"');
+            String str = value.toString();
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 0x20) {
+                    line.append(String.format("\\u%04x", (int) c));
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append('"');
+        }
+    }
+
+    /**
+     * Ferme le fichier de progression.
+     */
+    @Override
+    public void close() {
+        if (this.output != null) {
+            this.output.flush();
+            if (this.closeOutput) {
+                this.output.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.Condition;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Boucle de marche aléatoire partagée par les planners Monte-Carlo du package.
+ * C'est la boucle de <code>MyPlanner.solve</code> extraite pour pouvoir être
+ * relancée depuis n'importe quel état (sauts, échappement de plateaux, etc.).
+ */
+final class RandomWalk {
+
+    /**
+     * Stratégie de choix des actions d'une marche. Par défaut l'action est tirée
+     * uniformément parmi les actions applicables.
+     */
+    interface Guide {
+
+        /**
+         * Appelée au départ de chaque marche.
+         *
+         * @param state l'état de départ de la marche.
+         */
+        default void start(State state) {
+        }
+
+        /**
+         * Choisit l'action à appliquer.
+         *
+         * @param applicableActions les actions applicables (jamais vide).
+         * @param state             l'état courant.
+         * @param random            le générateur aléatoire.
+         * @return l'action choisie.
+         */
+        default Action select(List<Action> applicableActions, State state, RandomGenerator random) {
+            return applicableActions.get(random.nextInt(applicableActions.size()));
+        }
+
+        /**
+         * Appelée après l'application d'une action.
+         *
+         * @param action l'action appliquée.
+         * @param state  l'état obtenu.
+         */
+        default void applied(Action action, State state) {
+        }
+
+        /**
+         * Indique si la marche doit s'arrêter dans l'état obtenu, avant d'avoir
+         * atteint l'objectif.
+         *
+         * @param state l'état courant.
+         * @return <code>true</code> pour arrêter la marche.
+         */
+        default boolean stop(State state) {
+            return false;
+        }
+    }
+
+    /**
+     * Marche aléatoire pure : tirage uniforme parmi les actions applicables.
+     */
+    static final Guide UNIFORM = new Guide() {
+    };
+
+    /**
+     * Résultat d'une marche aléatoire.
+     */
+    static final class Result {
+
+        /**
+         * L'état atteint à la fin de la marche.
+         */
+        final State state;
+
+        /**
+         * La séquence d'actions appliquées depuis l'état de départ.
+         */
+        final List<Action> actions;
+
+        /**
+         * Vrai si l'objectif a été atteint pendant la marche.
+         */
+        final boolean goalReached;
+
+        /**
+         * Vrai si la marche s'est arrêtée faute d'action applicable.
+         */
+        final boolean deadEnd;
+
+        /**
+         * La somme, sur les pas de la marche, du nombre d'actions applicables.
+         */
+        final long applicableCount;
+
+        Result(State state, List<Action> actions, boolean goalReached, boolean deadEnd, long applicableCount) {
+            this.state = state;
+            this.actions = actions;
+            this.goalReached = goalReached;
+            this.deadEnd = deadEnd;
+            this.applicableCount = applicableCount;
+        }
+    }
+
+    private RandomWalk() {
+    }
+
+    /**
+     * Retourne la graine d'une recherche : la graine de l'option
+     * <code>--seed</code>, ou une graine tirée au hasard et journalisée pour
+     * pouvoir rejouer l'exécution.
+     *
+     * @param seed   la graine de l'option, ou null.
+     * @param logger le journal du planner.
+     * @return la graine de la recherche.
+     */
+    static long searchSeed(Long seed, Logger logger) {
+        if (seed != null) {
+            return seed;
+        }
+        long drawn = new SplittableRandom().nextLong();
+        logger.info("* Random seed {} (replay with --seed={})\n", drawn, drawn);
+        return drawn;
+    }
+
+    /**
+     * Retourne le générateur propre à une marche. Il ne dépend que de la graine de
+     * la recherche et de l'indice de la marche, et pas de l'ordre dans lequel les
+     * marches sont effectuées : la même graine rejoue les mêmes marches quel que
+     * soit le nombre de threads ou de workers. Les indices négatifs sont réservés
+     * aux tirages hors marches avant (régression depuis le but, etc.).
+     *
+     * @param seed la graine de la recherche.
+     * @param walk l'indice de la marche.
+     * @return un générateur indépendant de ceux des autres marches.
+     */
+    static SplittableRandom stream(long seed, long walk) {
+        // Finaliseur de SplitMix64 sur seed + (walk + 1) * gamma, pour que deux
+        // indices voisins donnent des graines décorrélées
+        long z = seed + (walk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /**
+     * Filtre les actions applicables dans un état.
+     *
+     * @param actions les actions candidates.
+     * @param state   l'état courant.
+     * @return la liste des actions applicables dans l'état.
+     */
+    static List<Action> applicableActions(List<Action> actions, State state) {
+        List<Action> applicableActions = new ArrayList<>();
+        for (Action action : actions) {
+            if (action.isApplicable(state)) {
+                applicableActions.add(action);
+            }
+        }
+        return applicableActions;
+    }
+
+    /**
+     * Effectue une marche aléatoire bornée depuis un état de départ. La marche
+     * s'arrête dès que l'objectif est atteint, qu'aucune action n'est applicable
+     * ou que la longueur maximale est atteinte.
+     *
+     * @param actions   les actions du problème.
+     * @param start     l'état de départ (il n'est pas modifié).
+     * @param goal      l'objectif à atteindre.
+     * @param maxLength la longueur maximale de la marche.
+     * @param random    le générateur aléatoire.
+     * @return le résultat de la marche.
+     */
+    static Result walk(List<Action> actions, State start, Condition goal, int maxLength, RandomGenerator random) {
+        return walk(actions, start, goal, maxLength, random, UNIFORM);
+    }
+
+    /**
+     * Effectue une marche bornée dont les actions sont choisies par un guide.
+     *
+     * @param actions   les actions du problème.
+     * @param start     l'état de départ (il n'est pas modifié).
+     * @param goal      l'objectif à atteindre.
+     * @param maxLength la longueur maximale de la marche.
+     * @param random    le générateur aléatoire.
+     * @param guide     la stratégie de choix des actions.
+     * @return le résultat de la marche.
+     */
+    static Result walk(List<Action> actions, State start, Condition goal, int maxLength, RandomGenerator random,
+            Guide guide) {
+        State currentState = new State(start);
+        List<Action> currentActionSequence = new ArrayList<>();
+        guide.start(currentState);
+        long applicableCount = 0;
+
+        for (int j = 0; j < maxLength; j++) {
+            List<Action> applicableActions = applicableActions(actions, currentState);
+            applicableCount += applicableActions.size();
+
+            // Arrêter la marche si aucune action n'est applicable
+            if (applicableActions.isEmpty()) {
+                return new Result(currentState, currentActionSequence, false, true, applicableCount);
+            }
+
+            // Sélection d'une action parmi les actions applicables
+            Action randomAction = guide.select(applicableActions, currentState, random);
+            currentState.apply(randomAction.getUnconditionalEffect());
+            currentActionSequence.add(randomAction);
+            guide.applied(randomAction, currentState);
+
+            if (currentState.satisfy(goal)) {
+                return new Result(currentState, currentActionSequence, true, false, applicableCount);
+            }
+            if (guide.stop(currentState)) {
+                break;
+            }
+        }
+        return new Result(currentState, currentActionSequence, false, false, applicableCount);
+    }
+
+    /**
+     * Évalue l'état actuel par rapport à l'objectif et retourne un score
+     * heuristique : le nombre de fluents de l'objectif non satisfaits.
+     *
+     * @param currentState L'état à évaluer.
+     * @param goal         L'objectif à atteindre.
+     * @return Un score heuristique (plus il est bas, plus l'état est proche de
+     *         l'objectif).
+     */
+    static double evaluateHeuristic(State currentState, Condition goal) {
+        PlannerEvents.HeuristicEvaluation event = new PlannerEvents.HeuristicEvaluation("goal-count");
+        event.begin();
+        double heuristicValue = 0.0;
+
+        // Vérifie les fluents positifs de l'objectif
+        BitVector goalPositiveFluents = goal.getPositiveFluents();
+        for (int i = goalPositiveFluents.nextSetBit(0); i >= 0; i = goalPositiveFluents.nextSetBit(i + 1)) {
+            if (!currentState.get(i)) {
+                heuristicValue += 1.0;
+            }
+        }
+
+        // Vérifie les fluents négatifs de l'objectif
+        BitVector goalNegativeFluents = goal.getNegativeFluents();
+        for (int i = goalNegativeFluents.nextSetBit(0); i >= 0; i = goalNegativeFluents.nextSetBit(i + 1)) {
+            if (currentState.get(i)) {
+                heuristicValue += 1.0;
+            }
+        }
+
+        event.value = heuristicValue;
+        event.commit();
+        return heuristicValue;
+    }
+}
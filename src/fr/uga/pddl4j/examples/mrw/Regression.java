@@ -0,0 +1,503 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Marches aléatoires en arrière depuis le but, pour les marches
+ * bidirectionnelles de <code>MyPlanner</code>.
+ * <p>
+ * Une marche de régression part du but vu comme un état partiel (fluents qui
+ * doivent être vrais, fluents qui doivent être faux) et tire à chaque pas une
+ * action qui produit l'un de ces fluents sans en détruire aucun. L'état
+ * partiel régressé est la plus faible condition sous laquelle l'action mène à
+ * l'état partiel précédent : les fluents produits par l'action sont remplacés
+ * par sa précondition. Tout état complet qui satisfait un état partiel
+ * régressé atteint donc le but en appliquant les actions de la marche de
+ * régression dans l'ordre inverse de leur tirage.
+ * </p>
+ * <p>
+ * Chaque état partiel est rangé une seule fois (les doublons sont écartés par
+ * leur empreinte). Pendant les marches en avant, chaque état partiel surveille
+ * l'une de ses conditions encore fausse, comme les littéraux surveillés d'un
+ * solveur SAT : quand une action rend vraie la condition surveillée, l'état
+ * partiel surveille l'une de ses autres conditions fausses, celle qui est
+ * devenue vraie le moins souvent jusqu'ici, et, s'il n'y en a plus, la marche
+ * l'a rejoint. Une action ne touche ainsi que les états
+ * partiels qui surveillent l'un des fluents qu'elle modifie, et rendre fausse
+ * une condition ne coûte rien. Les déplacements sont annulés au début de
+ * chaque marche pour revenir à la surveillance calculée sur l'état initial.
+ * Seules les actions sans effets conditionnels sont régressées (pddl4j recopie
+ * l'effet inconditionnel en effet de condition vide, ces effets-là sont
+ * acceptés).
+ * </p>
+ */
+final class Regression {
+
+    private final List<Action> actions;
+
+    // Ajouts et retraits de chaque action, par identité
+    private final Map<Action, int[]> added = new IdentityHashMap<>();
+    private final Map<Action, int[]> deleted = new IdentityHashMap<>();
+
+    // États partiels : fluents positifs et négatifs, action vers l'état partiel
+    // suivant (plus proche du but) et indice de celui-ci (-1 pour le but)
+    private final List<int[]> positive = new ArrayList<>();
+    private final List<int[]> negative = new ArrayList<>();
+    private final List<Integer> action = new ArrayList<>();
+    private final List<Integer> next = new ArrayList<>();
+
+    // Conditions de chaque état partiel codées en littéraux (2f pour « f vrai »,
+    // 2f + 1 pour « f faux »), les plus rarement rendues vraies en premier
+    private final List<int[]> literals = new ArrayList<>();
+
+    // Nombre d'actions qui rendent vrai chaque littéral
+    private final int[] achievers;
+
+    private final int nbFluents;
+
+    private Regression(List<Action> actions, int nbFluents) {
+        this.actions = actions;
+        this.nbFluents = nbFluents;
+        this.achievers = new int[2 * nbFluents];
+    }
+
+    /**
+     * Construit l'index des états partiels régressés depuis le but.
+     *
+     * @param problem   le problème instancié.
+     * @param actions   les actions utilisables.
+     * @param walks     le nombre de marches de régression.
+     * @param maxLength la longueur maximale d'une marche de régression.
+     * @param random    le générateur aléatoire.
+     * @return l'index des états partiels.
+     */
+    static Regression build(Problem problem, List<Action> actions, int walks, int maxLength, RandomGenerator random) {
+        final int nbFluents = problem.getFluents().size();
+        final Regression regression = new Regression(actions, nbFluents);
+        final int nbActions = actions.size();
+
+        // Actions compilées et producteurs de chaque fluent
+        int[][] prePositive = new int[nbActions][];
+        int[][] preNegative = new int[nbActions][];
+        int[][] add = new int[nbActions][];
+        int[][] del = new int[nbActions][];
+        List<List<Integer>> adders = new ArrayList<>(nbFluents);
+        List<List<Integer>> deleters = new ArrayList<>(nbFluents);
+        for (int f = 0; f < nbFluents; f++) {
+            adders.add(new ArrayList<>());
+            deleters.add(new ArrayList<>());
+        }
+        for (int a = 0; a < nbActions; a++) {
+            Action op = actions.get(a);
+            BitSet positiveEffect = toBitSet(op.getUnconditionalEffect().getPositiveFluents());
+            BitSet negativeEffect = toBitSet(op.getUnconditionalEffect().getNegativeFluents());
+            boolean conditional = false;
+            for (ConditionalEffect effect : op.getConditionalEffects()) {
+                conditional |= !effect.getCondition().isEmpty();
+                effect.getEffect().getPositiveFluents().stream().forEach(positiveEffect::set);
+                effect.getEffect().getNegativeFluents().stream().forEach(negativeEffect::set);
+            }
+            add[a] = positiveEffect.stream().toArray();
+            del[a] = negativeEffect.stream().toArray();
+            regression.added.put(op, add[a]);
+            regression.deleted.put(op, del[a]);
+            for (int f : add[a]) {
+                regression.achievers[2 * f]++;
+            }
+            for (int f : del[a]) {
+                regression.achievers[2 * f + 1]++;
+            }
+            if (conditional) {
+                continue;
+            }
+            prePositive[a] = toArray(op.getPrecondition().getPositiveFluents());
+            preNegative[a] = toArray(op.getPrecondition().getNegativeFluents());
+            for (int f : add[a]) {
+                adders.get(f).add(a);
+            }
+            for (int f : del[a]) {
+                deleters.get(f).add(a);
+            }
+        }
+
+        final BitSet goalPositive = toBitSet(problem.getGoal().getPositiveFluents());
+        final BitSet goalNegative = toBitSet(problem.getGoal().getNegativeFluents());
+        final Map<Long, Integer> known = new HashMap<>();
+        final BitSet candidates = new BitSet(nbActions);
+        final List<Integer> relevant = new ArrayList<>();
+        for (int w = 0; w < walks; w++) {
+            BitSet pos = (BitSet) goalPositive.clone();
+            BitSet neg = (BitSet) goalNegative.clone();
+            int current = -1;
+            for (int j = 0; j < maxLength; j++) {
+                // Actions qui produisent un fluent de l'état partiel
+                candidates.clear();
+                for (int f = pos.nextSetBit(0); f >= 0; f = pos.nextSetBit(f + 1)) {
+                    for (int a : adders.get(f)) {
+                        candidates.set(a);
+                    }
+                }
+                for (int f = neg.nextSetBit(0); f >= 0; f = neg.nextSetBit(f + 1)) {
+                    for (int a : deleters.get(f)) {
+                        candidates.set(a);
+                    }
+                }
+                relevant.clear();
+                for (int a = candidates.nextSetBit(0); a >= 0; a = candidates.nextSetBit(a + 1)) {
+                    if (isRegressable(pos, neg, prePositive[a], preNegative[a], add[a], del[a])) {
+                        relevant.add(a);
+                    }
+                }
+                if (relevant.isEmpty()) {
+                    break;
+                }
+                int a = relevant.get(random.nextInt(relevant.size()));
+                for (int f : add[a]) {
+                    pos.clear(f);
+                }
+                for (int f : del[a]) {
+                    neg.clear(f);
+                }
+                for (int f : prePositive[a]) {
+                    pos.set(f);
+                }
+                for (int f : preNegative[a]) {
+                    neg.set(f);
+                }
+                int[] partialPositive = pos.stream().toArray();
+                int[] partialNegative = neg.stream().toArray();
+                // Un état partiel déjà rangé garde son suffixe, la marche continue
+                // depuis lui
+                Long key = hash(partialPositive, partialNegative);
+                Integer existing = known.get(key);
+                if (existing != null && (!Arrays.equals(regression.positive.get(existing), partialPositive)
+                        || !Arrays.equals(regression.negative.get(existing), partialNegative))) {
+                    // Collision d'empreintes : nouvel état partiel non indexé
+                    current = regression.add(partialPositive, partialNegative, a, current);
+                } else if (existing == null) {
+                    current = regression.add(partialPositive, partialNegative, a, current);
+                    known.put(key, current);
+                } else {
+                    current = existing;
+                }
+            }
+        }
+        return regression;
+    }
+
+    /**
+     * Retourne le nombre d'états partiels rangés.
+     *
+     * @return le nombre d'états partiels.
+     */
+    int size() {
+        return this.positive.size();
+    }
+
+    /**
+     * Cherche parmi tous les états partiels un état satisfait par un état
+     * complet.
+     *
+     * @param state l'état complet.
+     * @return les actions qui mènent de l'état au but, ou null.
+     */
+    List<Action> find(State state) {
+        for (int i = 0; i < this.size(); i++) {
+            if (this.satisfies(state, i)) {
+                return this.suffix(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retourne un guide de marche qui arrête la marche dès qu'elle atteint un
+     * état partiel régressé. Les actions sont choisies par le guide de base.
+     * Toutes les marches doivent partir de l'état donné, et aucun état partiel
+     * ne doit y être satisfait (voir {@link #find(State)}).
+     *
+     * @param base  le guide de base.
+     * @param start l'état de départ des marches.
+     * @return le guide de rencontre.
+     */
+    Meeting guide(RandomWalk.Guide base, State start) {
+        return new Meeting(base, start);
+    }
+
+    /**
+     * Guide de marche qui repère la rencontre avec un état partiel régressé.
+     * Les conditions sont codées en littéraux : 2f pour « f vrai », 2f + 1 pour
+     * « f faux ».
+     */
+    final class Meeting implements RandomWalk.Guide {
+
+        private final RandomWalk.Guide base;
+
+        // Littéral surveillé par chaque état partiel, et états partiels par
+        // littéral surveillé (les entrées dont le littéral a changé depuis sont
+        // ignorées)
+        private final int[] watch;
+        private final int[][] watchers;
+        private final int[] watcherCount;
+
+        // Nombre de fois où chaque littéral est devenu vrai pendant les marches
+        private final long[] flips;
+
+        // Déplacements de la marche en cours : état partiel, ancien littéral
+        private int[] moves = new int[64];
+        private int moveCount;
+
+        private int met = -1;
+
+        private Meeting(RandomWalk.Guide base, State start) {
+            this.base = base;
+            this.watch = new int[Regression.this.size()];
+            this.watchers = new int[2 * Regression.this.nbFluents][];
+            this.watcherCount = new int[2 * Regression.this.nbFluents];
+            this.flips = new long[2 * Regression.this.nbFluents];
+            for (int i = 0; i < this.watch.length; i++) {
+                this.watch[i] = Regression.this.unsatisfied(start, i);
+                if (this.watch[i] >= 0) {
+                    this.addWatcher(this.watch[i], i);
+                }
+            }
+        }
+
+        @Override
+        public void start(State state) {
+            // Annule les déplacements de la marche précédente, du dernier au premier
+            for (int m = this.moveCount - 2; m >= 0; m -= 2) {
+                int i = this.moves[m];
+                this.watcherCount[this.watch[i]]--;
+                this.watch[i] = this.moves[m + 1];
+            }
+            this.moveCount = 0;
+            this.met = -1;
+            this.base.start(state);
+        }
+
+        @Override
+        public Action select(List<Action> applicableActions, State state, RandomGenerator random) {
+            return this.base.select(applicableActions, state, random);
+        }
+
+        @Override
+        public void applied(Action applied, State state) {
+            this.base.applied(applied, state);
+            for (int f : Regression.this.added.get(applied)) {
+                this.flips[2 * f]++;
+                if (this.met < 0) {
+                    this.satisfied(2 * f, state);
+                }
+            }
+            for (int f : Regression.this.deleted.get(applied)) {
+                this.flips[2 * f + 1]++;
+                if (this.met < 0) {
+                    this.satisfied(2 * f + 1, state);
+                }
+            }
+        }
+
+        @Override
+        public boolean stop(State state) {
+            return this.met >= 0;
+        }
+
+        /**
+         * Joint le début d'une marche arrêtée sur un état partiel et la suite
+         * de ce dernier jusqu'au but.
+         *
+         * @param prefix les actions de la marche en avant.
+         * @return le plan complet, ou null si la dernière marche n'a rencontré
+         *         aucun état partiel.
+         */
+        List<Action> join(List<Action> prefix) {
+            if (this.met < 0) {
+                return null;
+            }
+            List<Action> plan = new ArrayList<>(prefix);
+            plan.addAll(Regression.this.suffix(this.met));
+            return plan;
+        }
+
+        /**
+         * Déplace la surveillance des états partiels dont le littéral surveillé
+         * vient de devenir vrai.
+         */
+        private void satisfied(int literal, State state) {
+            int[] list = this.watchers[literal];
+            int count = this.watcherCount[literal];
+            for (int k = 0; k < count; k++) {
+                int i = list[k];
+                if (this.watch[i] != literal) {
+                    continue;
+                }
+                int other = this.rarest(state, i);
+                if (other < 0) {
+                    this.met = i;
+                    return;
+                }
+                if (this.moveCount + 2 > this.moves.length) {
+                    this.moves = Arrays.copyOf(this.moves, 2 * this.moves.length);
+                }
+                this.moves[this.moveCount++] = i;
+                this.moves[this.moveCount++] = literal;
+                this.watch[i] = other;
+                this.addWatcher(other, i);
+            }
+        }
+
+        /**
+         * Retourne la condition fausse d'un état partiel qui est devenue vraie
+         * le moins souvent jusqu'ici, ou -1 si l'état partiel est satisfait.
+         */
+        private int rarest(State state, int i) {
+            int rarest = -1;
+            for (int literal : Regression.this.literals.get(i)) {
+                if (state.get(literal >> 1) != ((literal & 1) == 0)
+                        && (rarest < 0 || this.flips[literal] < this.flips[rarest])) {
+                    rarest = literal;
+                }
+            }
+            return rarest;
+        }
+
+        private void addWatcher(int literal, int i) {
+            int[] list = this.watchers[literal];
+            if (list == null) {
+                list = new int[4];
+            } else if (this.watcherCount[literal] == list.length) {
+                list = Arrays.copyOf(list, 2 * list.length);
+            }
+            list[this.watcherCount[literal]++] = i;
+            this.watchers[literal] = list;
+        }
+    }
+
+    private int add(int[] pos, int[] neg, int a, int nextPartial) {
+        int i = this.positive.size();
+        this.positive.add(pos);
+        this.negative.add(neg);
+        this.action.add(a);
+        this.next.add(nextPartial);
+        Integer[] sorted = new Integer[pos.length + neg.length];
+        for (int k = 0; k < pos.length; k++) {
+            sorted[k] = 2 * pos[k];
+        }
+        for (int k = 0; k < neg.length; k++) {
+            sorted[pos.length + k] = 2 * neg[k] + 1;
+        }
+        Arrays.sort(sorted, Comparator.comparingInt(literal -> this.achievers[literal]));
+        this.literals.add(Arrays.stream(sorted).mapToInt(Integer::intValue).toArray());
+        return i;
+    }
+
+    /**
+     * Retourne la première condition fausse d'un état partiel dans un état
+     * complet, ou -1 si l'état partiel est satisfait.
+     */
+    private int unsatisfied(State state, int i) {
+        for (int literal : this.literals.get(i)) {
+            if (state.get(literal >> 1) != ((literal & 1) == 0)) {
+                return literal;
+            }
+        }
+        return -1;
+    }
+
+    private boolean satisfies(State state, int i) {
+        for (int f : this.positive.get(i)) {
+            if (!state.get(f)) {
+                return false;
+            }
+        }
+        for (int f : this.negative.get(i)) {
+            if (state.get(f)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Action> suffix(int i) {
+        List<Action> suffix = new ArrayList<>();
+        for (int p = i; p >= 0; p = this.next.get(p)) {
+            suffix.add(this.actions.get(this.action.get(p)));
+        }
+        return suffix;
+    }
+
+    /**
+     * Une action est régressable si elle produit au moins un fluent de l'état
+     * partiel (vérifié par l'appelant), n'en détruit aucun et si l'état
+     * partiel régressé est cohérent.
+     */
+    private static boolean isRegressable(BitSet pos, BitSet neg, int[] prePositive, int[] preNegative, int[] add,
+            int[] del) {
+        for (int f : del) {
+            if (pos.get(f)) {
+                return false;
+            }
+        }
+        for (int f : add) {
+            if (neg.get(f)) {
+                return false;
+            }
+        }
+        // Fluents qui restent exigés après la régression
+        for (int f : prePositive) {
+            if (neg.get(f) && Arrays.binarySearch(del, f) < 0) {
+                return false;
+            }
+        }
+        for (int f : preNegative) {
+            if (pos.get(f) && Arrays.binarySearch(add, f) < 0) {
+                return false;
+            }
+        }
+        for (int f : prePositive) {
+            if (Arrays.binarySearch(preNegative, f) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(int[] pos, int[] neg) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int f : pos) {
+            hash = (hash ^ f) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        hash = (hash ^ -1L) * 0xBF58476D1CE4E5B9L;
+        for (int f : neg) {
+            hash = (hash ^ f) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+        return hash;
+    }
+
+    private static int[] toArray(BitVector vector) {
+        return vector.stream().toArray();
+    }
+
+    private static BitSet toBitSet(BitVector vector) {
+        BitSet set = new BitSet();
+        vector.stream().forEach(set::set);
+        return set;
+    }
+}
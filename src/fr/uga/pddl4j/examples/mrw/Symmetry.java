@@ -0,0 +1,702 @@
+package fr.uga.pddl4j.examples.mrw;
+
+import fr.uga.pddl4j.problem.Fluent;
+import fr.uga.pddl4j.problem.Problem;
+import fr.uga.pddl4j.problem.State;
+import fr.uga.pddl4j.problem.operator.Action;
+import fr.uga.pddl4j.problem.operator.ConditionalEffect;
+import fr.uga.pddl4j.util.BitVector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Symétries d'objets d'un problème instancié.
+ * <p>
+ * Deux objets sont interchangeables si les échanger transforme chaque fluent
+ * en un fluent du problème, chaque action en une action du problème (mêmes
+ * préconditions et effets, permutés) et laisse le but inchangé. L'état initial
+ * n'a pas à être préservé : ces permutations sont des symétries du système de
+ * transitions, valables depuis n'importe quel état. Si a et b sont
+ * interchangeables ainsi que a et c, b et c le sont aussi, les objets sont donc
+ * regroupés en classes dont toutes les permutations sont des symétries (toutes
+ * les balles de gripper, les deux pinces, les paquets de logistics qui ont la
+ * même destination).
+ * </p>
+ * <p>
+ * Deux usages :
+ * </p>
+ * <ul>
+ * <li>dans les marches, les actions applicables sont regroupées par orbite
+ * (même schéma, arguments de la même classe dans la même situation dans l'état
+ * courant) et le tirage se fait d'abord entre orbites, puis dans l'orbite ; la
+ * situation d'un objet est résumée par une empreinte des fluents vrais qui le
+ * mentionnent, c'est donc une approximation qui ne change que le biais du
+ * tirage ;</li>
+ * <li>dans A*, chaque état est remplacé par une forme canonique obtenue en
+ * appliquant tant que possible l'échange de deux objets voisins d'une classe
+ * qui rend l'état lexicographiquement plus petit. Cette forme n'est pas
+ * unique pour une orbite, mais deux états qui ont la même forme sont
+ * symétriques, la détection des doublons reste donc exacte.</li>
+ * </ul>
+ */
+final class Symmetry {
+
+    private final List<Action> actions;
+    private final int nbObjects;
+
+    // Objets et classes d'objets interchangeables (-1 : objet sans symétrique)
+    private final int[] objectClass;
+    private final List<int[]> classes;
+
+    // Index des fluents et des actions par nom et arguments
+    private final Map<String, Integer> fluentIndex;
+    private final Map<String, Integer> actionIndex;
+
+    // Générateurs : échanges de deux objets voisins d'une classe, sous forme de
+    // paires de fluents (low < high) triées par low
+    private final int[] generatorFirst;
+    private final int[] generatorSecond;
+    private final int[][] generatorLow;
+    private final int[][] generatorHigh;
+
+    // Empreintes des objets dans l'état courant, pour les orbites d'actions
+    private final int[][] fluentsOf;
+    private final long[][] maskedCode;
+    private final long[] signatureCache;
+    private final int[] signatureStamp;
+    private int stamp;
+
+    private Symmetry(Problem problem, int[] objectClass, List<int[]> classes, Map<String, Integer> fluentIndex,
+            Map<String, Integer> actionIndex, int[][] fluentsOf) {
+        this.actions = problem.getActions();
+        this.nbObjects = objectClass.length;
+        this.objectClass = objectClass;
+        this.classes = classes;
+        this.fluentIndex = fluentIndex;
+        this.actionIndex = actionIndex;
+        this.fluentsOf = fluentsOf;
+
+        final List<Fluent> fluents = problem.getFluents();
+        int nbGenerators = 0;
+        for (int[] members : classes) {
+            nbGenerators += members.length - 1;
+        }
+        this.generatorFirst = new int[nbGenerators];
+        this.generatorSecond = new int[nbGenerators];
+        this.generatorLow = new int[nbGenerators][];
+        this.generatorHigh = new int[nbGenerators][];
+        int k = 0;
+        for (int[] members : classes) {
+            for (int i = 0; i + 1 < members.length; i++, k++) {
+                this.generatorFirst[k] = members[i];
+                this.generatorSecond[k] = members[i + 1];
+                this.buildGenerator(k, fluents);
+            }
+        }
+
+        this.maskedCode = new long[this.nbObjects][];
+        for (int o = 0; o < this.nbObjects; o++) {
+            this.maskedCode[o] = new long[fluentsOf[o].length];
+            for (int i = 0; i < fluentsOf[o].length; i++) {
+                Fluent fluent = fluents.get(fluentsOf[o][i]);
+                long code = fluent.getSymbol();
+                for (int arg : fluent.getArguments()) {
+                    long component = arg == o ? -1 : objectClass[arg] >= 0 ? -2 - objectClass[arg] : arg;
+                    code = mix(code * 31 + component);
+                }
+                this.maskedCode[o][i] = code;
+            }
+        }
+        this.signatureCache = new long[this.nbObjects];
+        this.signatureStamp = new int[this.nbObjects];
+    }
+
+    /**
+     * Cherche les classes d'objets interchangeables d'un problème instancié.
+     * Seuls les objets qui apparaissent le même nombre de fois aux mêmes
+     * positions des mêmes prédicats, actions et fluents du but sont comparés.
+     *
+     * @param problem le problème instancié.
+     * @return les symétries du problème.
+     */
+    static Symmetry detect(Problem problem) {
+        final int nbObjects = problem.getConstantSymbols().size();
+        final List<Fluent> fluents = problem.getFluents();
+        final List<Action> actions = problem.getActions();
+        final BitVector goalPositive = problem.getGoal().getPositiveFluents();
+        final BitVector goalNegative = problem.getGoal().getNegativeFluents();
+
+        Map<String, Integer> fluentIndex = new HashMap<>();
+        List<List<Integer>> fluentLists = newLists(nbObjects);
+        long[] profile = new long[nbObjects];
+        for (int f = 0; f < fluents.size(); f++) {
+            Fluent fluent = fluents.get(f);
+            int[] args = fluent.getArguments();
+            fluentIndex.put(key(fluent.getSymbol(), args), f);
+            int kind = goalPositive.get(f) ? 2 : goalNegative.get(f) ? 3 : 1;
+            for (int p = 0; p < args.length; p++) {
+                addLast(fluentLists.get(args[p]), f);
+                profile[args[p]] += mix(mix(kind * 1_000_003L + fluent.getSymbol()) + p);
+            }
+        }
+        Map<String, Integer> actionIndex = new HashMap<>();
+        List<List<Integer>> actionLists = newLists(nbObjects);
+        for (int a = 0; a < actions.size(); a++) {
+            Action action = actions.get(a);
+            int[] args = action.getInstantiations();
+            actionIndex.put(key(action.getName(), args), a);
+            for (int p = 0; p < args.length; p++) {
+                addLast(actionLists.get(args[p]), a);
+                profile[args[p]] += mix(mix(4 * 1_000_003L + action.getName().hashCode()) + p);
+            }
+            // Les constantes du domaine peuvent apparaître dans les fluents d'une
+            // action sans en être des paramètres
+            List<BitVector> parts = new ArrayList<>();
+            parts.add(action.getPrecondition().getPositiveFluents());
+            parts.add(action.getPrecondition().getNegativeFluents());
+            parts.add(action.getUnconditionalEffect().getPositiveFluents());
+            parts.add(action.getUnconditionalEffect().getNegativeFluents());
+            for (ConditionalEffect effect : action.getConditionalEffects()) {
+                parts.add(effect.getCondition().getPositiveFluents());
+                parts.add(effect.getCondition().getNegativeFluents());
+                parts.add(effect.getEffect().getPositiveFluents());
+                parts.add(effect.getEffect().getNegativeFluents());
+            }
+            for (BitVector part : parts) {
+                for (int f = part.nextSetBit(0); f >= 0; f = part.nextSetBit(f + 1)) {
+                    for (int o : fluents.get(f).getArguments()) {
+                        addLast(actionLists.get(o), a);
+                    }
+                }
+            }
+        }
+        int[][] fluentsOf = toArrays(fluentLists);
+        int[][] actionsOf = toArrays(actionLists);
+
+        // Objets candidats : même profil
+        Map<Long, List<Integer>> candidates = new LinkedHashMap<>();
+        for (int o = 0; o < nbObjects; o++) {
+            candidates.computeIfAbsent(profile[o], key -> new ArrayList<>()).add(o);
+        }
+
+        Checker checker = new Checker(fluents, actions, fluentIndex, actionIndex, fluentsOf, actionsOf,
+                goalPositive, goalNegative);
+        int[] objectClass = new int[nbObjects];
+        Arrays.fill(objectClass, -1);
+        List<int[]> classes = new ArrayList<>();
+        for (List<Integer> group : candidates.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            // Il suffit de comparer chaque objet au premier de chaque classe : si a
+            // et b sont interchangeables, b l'est avec tous les objets de la classe de a
+            List<List<Integer>> groupClasses = new ArrayList<>();
+            for (int o : group) {
+                List<Integer> joined = null;
+                for (List<Integer> members : groupClasses) {
+                    if (checker.isSymmetry(members.get(0), o)) {
+                        joined = members;
+                        break;
+                    }
+                }
+                if (joined == null) {
+                    joined = new ArrayList<>();
+                    groupClasses.add(joined);
+                }
+                joined.add(o);
+            }
+            for (List<Integer> members : groupClasses) {
+                if (members.size() > 1) {
+                    for (int o : members) {
+                        objectClass[o] = classes.size();
+                    }
+                    classes.add(members.stream().mapToInt(Integer::intValue).toArray());
+                }
+            }
+        }
+        return new Symmetry(problem, objectClass, classes, fluentIndex, actionIndex, fluentsOf);
+    }
+
+    /**
+     * Indique si le problème n'a aucune symétrie d'objets.
+     *
+     * @return <code>true</code> si aucun objet n'a de symétrique.
+     */
+    boolean isTrivial() {
+        return this.classes.isEmpty();
+    }
+
+    /**
+     * Retourne le nombre de classes d'objets interchangeables.
+     *
+     * @return le nombre de classes.
+     */
+    int getClassCount() {
+        return this.classes.size();
+    }
+
+    /**
+     * Décrit les classes d'objets interchangeables avec les noms des objets.
+     *
+     * @param problem le problème instancié.
+     * @return la description des classes.
+     */
+    String describe(Problem problem) {
+        StringBuilder str = new StringBuilder();
+        for (int[] members : this.classes) {
+            str.append(str.length() == 0 ? "{" : ", {");
+            for (int i = 0; i < members.length; i++) {
+                str.append(i == 0 ? "" : " ").append(problem.getConstantSymbols().get(members[i]));
+            }
+            str.append('}');
+        }
+        return str.toString();
+    }
+
+    /**
+     * Retourne un représentant tiré au hasard de chaque orbite d'actions
+     * applicables. Deux actions sont dans la même orbite si elles ont le même
+     * schéma et si leurs arguments diffèrent seulement par des objets de la
+     * même classe dans la même situation dans l'état courant.
+     *
+     * @param applicableActions les actions applicables.
+     * @param state             l'état courant.
+     * @param random            le générateur aléatoire.
+     * @return un représentant par orbite, dans l'ordre de première apparition.
+     */
+    List<Action> representatives(List<Action> applicableActions, State state, RandomGenerator random) {
+        if (this.classes.isEmpty()) {
+            return applicableActions;
+        }
+        this.stamp++;
+        Map<Long, Integer> orbits = new HashMap<>();
+        List<Action> representatives = new ArrayList<>();
+        int[] sizes = new int[applicableActions.size()];
+        for (Action action : applicableActions) {
+            Long key = this.orbitKey(action, state);
+            Integer orbit = orbits.get(key);
+            if (orbit == null) {
+                orbits.put(key, representatives.size());
+                sizes[representatives.size()] = 1;
+                representatives.add(action);
+            } else if (random.nextInt(++sizes[orbit]) == 0) {
+                // Tirage uniforme dans l'orbite sans la stocker
+                representatives.set(orbit, action);
+            }
+        }
+        return representatives;
+    }
+
+    /**
+     * Retourne un guide de marche qui tire d'abord une orbite d'actions puis
+     * laisse le guide de base choisir parmi les représentants des orbites.
+     *
+     * @param base le guide de base.
+     * @return le guide réduit par symétrie.
+     */
+    RandomWalk.Guide guide(RandomWalk.Guide base) {
+        return new RandomWalk.Guide() {
+            @Override
+            public void start(State state) {
+                base.start(state);
+            }
+
+            @Override
+            public Action select(List<Action> applicableActions, State state, RandomGenerator random) {
+                return base.select(representatives(applicableActions, state, random), state, random);
+            }
+
+            @Override
+            public void applied(Action action, State state) {
+                base.applied(action, state);
+            }
+        };
+    }
+
+    /**
+     * Remplace un état compacté (un bit par fluent dans des <code>long</code>)
+     * par sa forme canonique.
+     *
+     * @param packed l'état, modifié en place.
+     */
+    void canonicalize(long[] packed) {
+        this.canonicalize(packed, null);
+    }
+
+    /**
+     * Remplace un état compacté par sa forme canonique et compose la
+     * permutation d'objets donnée avec les échanges appliqués :
+     * <code>permutation[x]</code> devient <code>permutation[τ⁻¹(x)]</code>, où τ
+     * est la permutation qui a transformé l'état. Si l'état d'origine est
+     * l'image par <code>permutation</code> d'un état s, il reste ainsi l'image
+     * par la nouvelle permutation de la forme canonique.
+     *
+     * @param packed      l'état, modifié en place.
+     * @param permutation la permutation d'objets à composer, ou null.
+     */
+    void canonicalize(long[] packed, int[] permutation) {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 0; k < this.generatorLow.length; k++) {
+                int[] low = this.generatorLow[k];
+                int[] high = this.generatorHigh[k];
+                for (int p = 0; p < low.length; p++) {
+                    boolean lowBit = get(packed, low[p]);
+                    if (lowBit != get(packed, high[p])) {
+                        // Le premier fluent qui change décide : on garde l'état qui a
+                        // ce fluent vrai
+                        if (!lowBit) {
+                            for (int q = 0; q < low.length; q++) {
+                                swap(packed, low[q], high[q]);
+                            }
+                            if (permutation != null) {
+                                int first = permutation[this.generatorFirst[k]];
+                                permutation[this.generatorFirst[k]] = permutation[this.generatorSecond[k]];
+                                permutation[this.generatorSecond[k]] = first;
+                            }
+                            changed = true;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Retourne l'identité sur les objets, point de départ de
+     * {@link #canonicalize(long[], int[])}.
+     *
+     * @return la permutation identité.
+     */
+    int[] identity() {
+        int[] permutation = new int[this.nbObjects];
+        for (int o = 0; o < this.nbObjects; o++) {
+            permutation[o] = o;
+        }
+        return permutation;
+    }
+
+    /**
+     * Retourne l'indice de l'image d'une action par une permutation d'objets.
+     *
+     * @param a           l'indice de l'action.
+     * @param permutation la permutation d'objets.
+     * @return l'indice de l'action image, ou -1 si elle n'existe pas.
+     */
+    int image(int a, int[] permutation) {
+        Action action = this.actions.get(a);
+        int[] args = action.getInstantiations().clone();
+        for (int p = 0; p < args.length; p++) {
+            args[p] = permutation[args[p]];
+        }
+        Integer image = this.actionIndex.get(key(action.getName(), args));
+        return image != null ? image : -1;
+    }
+
+    /**
+     * Complète une liste d'actions par leurs images sous toutes les
+     * permutations des classes. L'état initial n'étant pas préservé, un
+     * élagage par accessibilité n'est pas stable par symétrie : la forme
+     * canonique d'un état peut avoir besoin d'actions retirées.
+     *
+     * @param kept les actions conservées, parmi celles du problème.
+     * @return les actions dont l'orbite rencontre <code>kept</code>, dans l'ordre
+     *         du problème.
+     */
+    List<Action> close(List<Action> kept) {
+        final Map<Action, Integer> indices = new IdentityHashMap<>();
+        for (int a = 0; a < this.actions.size(); a++) {
+            indices.put(this.actions.get(a), a);
+        }
+        final BitSet closed = new BitSet(this.actions.size());
+        final Deque<Integer> open = new ArrayDeque<>();
+        for (Action action : kept) {
+            int a = indices.get(action);
+            if (!closed.get(a)) {
+                closed.set(a);
+                open.add(a);
+            }
+        }
+        // Les échanges d'objets voisins engendrent toutes les permutations des classes
+        final int[] permutation = this.identity();
+        while (!open.isEmpty()) {
+            int a = open.poll();
+            for (int k = 0; k < this.generatorFirst.length; k++) {
+                int first = this.generatorFirst[k];
+                int second = this.generatorSecond[k];
+                permutation[first] = second;
+                permutation[second] = first;
+                int b = this.image(a, permutation);
+                permutation[first] = first;
+                permutation[second] = second;
+                if (b >= 0 && !closed.get(b)) {
+                    closed.set(b);
+                    open.add(b);
+                }
+            }
+        }
+        final List<Action> actions = new ArrayList<>(closed.cardinality());
+        for (int a = closed.nextSetBit(0); a >= 0; a = closed.nextSetBit(a + 1)) {
+            actions.add(this.actions.get(a));
+        }
+        return actions;
+    }
+
+    private void buildGenerator(int k, List<Fluent> fluents) {
+        int a = this.generatorFirst[k];
+        int b = this.generatorSecond[k];
+        List<int[]> pairs = new ArrayList<>();
+        for (int[] list : new int[][] { this.fluentsOf[a], this.fluentsOf[b] }) {
+            for (int f : list) {
+                int image = this.fluentIndex.get(swapKey(fluents.get(f), a, b));
+                if (f < image) {
+                    pairs.add(new int[] { f, image });
+                }
+            }
+        }
+        pairs.sort((x, y) -> Integer.compare(x[0], y[0]));
+        // Un fluent qui mentionne a et b apparaît dans les deux listes
+        int[] low = new int[pairs.size()];
+        int[] high = new int[pairs.size()];
+        int n = 0;
+        for (int[] pair : pairs) {
+            if (n == 0 || low[n - 1] != pair[0]) {
+                low[n] = pair[0];
+                high[n] = pair[1];
+                n++;
+            }
+        }
+        this.generatorLow[k] = Arrays.copyOf(low, n);
+        this.generatorHigh[k] = Arrays.copyOf(high, n);
+    }
+
+    private Long orbitKey(Action action, State state) {
+        int[] args = action.getInstantiations();
+        long key = action.getName().hashCode();
+        for (int p = 0; p < args.length; p++) {
+            int o = args[p];
+            long component = this.objectClass[o] < 0 ? o
+                    : mix(-2 - this.objectClass[o]) + this.signature(o, state);
+            // Conserve les égalités entre arguments
+            for (int q = 0; q < p; q++) {
+                if (args[q] == o) {
+                    component = mix(component + q + 1);
+                    break;
+                }
+            }
+            key = mix(key * 31 + component);
+        }
+        return key;
+    }
+
+    private long signature(int o, State state) {
+        if (this.signatureStamp[o] != this.stamp) {
+            long signature = 0;
+            int[] list = this.fluentsOf[o];
+            for (int i = 0; i < list.length; i++) {
+                if (state.get(list[i])) {
+                    signature += this.maskedCode[o][i];
+                }
+            }
+            this.signatureCache[o] = signature;
+            this.signatureStamp[o] = this.stamp;
+        }
+        return this.signatureCache[o];
+    }
+
+    /**
+     * Vérifie qu'un échange de deux objets est une symétrie du problème.
+     */
+    private static final class Checker {
+
+        private final List<Fluent> fluents;
+        private final List<Action> actions;
+        private final Map<String, Integer> fluentIndex;
+        private final Map<String, Integer> actionIndex;
+        private final int[][] fluentsOf;
+        private final int[][] actionsOf;
+        private final BitVector goalPositive;
+        private final BitVector goalNegative;
+        private final int[] permutation;
+
+        Checker(List<Fluent> fluents, List<Action> actions, Map<String, Integer> fluentIndex,
+                Map<String, Integer> actionIndex, int[][] fluentsOf, int[][] actionsOf, BitVector goalPositive,
+                BitVector goalNegative) {
+            this.fluents = fluents;
+            this.actions = actions;
+            this.fluentIndex = fluentIndex;
+            this.actionIndex = actionIndex;
+            this.fluentsOf = fluentsOf;
+            this.actionsOf = actionsOf;
+            this.goalPositive = goalPositive;
+            this.goalNegative = goalNegative;
+            this.permutation = new int[fluents.size()];
+            for (int f = 0; f < this.permutation.length; f++) {
+                this.permutation[f] = f;
+            }
+        }
+
+        boolean isSymmetry(int a, int b) {
+            try {
+                return this.check(a, b);
+            } finally {
+                for (int[] list : new int[][] { this.fluentsOf[a], this.fluentsOf[b] }) {
+                    for (int f : list) {
+                        this.permutation[f] = f;
+                    }
+                }
+            }
+        }
+
+        private boolean check(int a, int b) {
+            // Permutation des fluents, puis but
+            for (int[] list : new int[][] { this.fluentsOf[a], this.fluentsOf[b] }) {
+                for (int f : list) {
+                    Integer image = this.fluentIndex.get(swapKey(this.fluents.get(f), a, b));
+                    if (image == null) {
+                        return false;
+                    }
+                    this.permutation[f] = image;
+                }
+            }
+            for (int[] list : new int[][] { this.fluentsOf[a], this.fluentsOf[b] }) {
+                for (int f : list) {
+                    int image = this.permutation[f];
+                    if (this.goalPositive.get(f) != this.goalPositive.get(image)
+                            || this.goalNegative.get(f) != this.goalNegative.get(image)) {
+                        return false;
+                    }
+                }
+            }
+            // Chaque action doit avoir pour image une action du problème avec les
+            // mêmes préconditions et effets permutés
+            for (int[] list : new int[][] { this.actionsOf[a], this.actionsOf[b] }) {
+                for (int x : list) {
+                    Action action = this.actions.get(x);
+                    int[] args = action.getInstantiations().clone();
+                    for (int p = 0; p < args.length; p++) {
+                        args[p] = args[p] == a ? b : args[p] == b ? a : args[p];
+                    }
+                    Integer y = this.actionIndex.get(key(action.getName(), args));
+                    if (y == null || !this.sameImage(action, this.actions.get(y))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean sameImage(Action action, Action image) {
+            if (!this.sameImage(action.getPrecondition().getPositiveFluents(),
+                    image.getPrecondition().getPositiveFluents())
+                    || !this.sameImage(action.getPrecondition().getNegativeFluents(),
+                            image.getPrecondition().getNegativeFluents())
+                    || !this.sameImage(action.getUnconditionalEffect().getPositiveFluents(),
+                            image.getUnconditionalEffect().getPositiveFluents())
+                    || !this.sameImage(action.getUnconditionalEffect().getNegativeFluents(),
+                            image.getUnconditionalEffect().getNegativeFluents())) {
+                return false;
+            }
+            List<ConditionalEffect> effects = action.getConditionalEffects();
+            List<ConditionalEffect> imageEffects = image.getConditionalEffects();
+            if (effects.size() != imageEffects.size()) {
+                return false;
+            }
+            for (int e = 0; e < effects.size(); e++) {
+                ConditionalEffect effect = effects.get(e);
+                ConditionalEffect imageEffect = imageEffects.get(e);
+                if (!this.sameImage(effect.getCondition().getPositiveFluents(),
+                        imageEffect.getCondition().getPositiveFluents())
+                        || !this.sameImage(effect.getCondition().getNegativeFluents(),
+                                imageEffect.getCondition().getNegativeFluents())
+                        || !this.sameImage(effect.getEffect().getPositiveFluents(),
+                                imageEffect.getEffect().getPositiveFluents())
+                        || !this.sameImage(effect.getEffect().getNegativeFluents(),
+                                imageEffect.getEffect().getNegativeFluents())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean sameImage(BitVector fluents, BitVector image) {
+            if (fluents.cardinality() != image.cardinality()) {
+                return false;
+            }
+            for (int f = fluents.nextSetBit(0); f >= 0; f = fluents.nextSetBit(f + 1)) {
+                if (!image.get(this.permutation[f])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static boolean get(long[] packed, int fluent) {
+        return (packed[fluent >>> 6] & (1L << fluent)) != 0;
+    }
+
+    private static void swap(long[] packed, int first, int second) {
+        if (get(packed, first) != get(packed, second)) {
+            packed[first >>> 6] ^= 1L << first;
+            packed[second >>> 6] ^= 1L << second;
+        }
+    }
+
+    private static String key(Object symbol, int[] args) {
+        StringBuilder str = new StringBuilder().append(symbol);
+        for (int arg : args) {
+            str.append(' ').append(arg);
+        }
+        return str.toString();
+    }
+
+    private static String swapKey(Fluent fluent, int a, int b) {
+        int[] args = fluent.getArguments().clone();
+        for (int p = 0; p < args.length; p++) {
+            args[p] = args[p] == a ? b : args[p] == b ? a : args[p];
+        }
+        return key(fluent.getSymbol(), args);
+    }
+
+    private static void addLast(List<Integer> list, int value) {
+        if (list.isEmpty() || list.get(list.size() - 1) != value) {
+            list.add(value);
+        }
+    }
+
+    private static List<List<Integer>> newLists(int size) {
+        List<List<Integer>> lists = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lists.add(new ArrayList<>());
+        }
+        return lists;
+    }
+
+    private static int[][] toArrays(List<List<Integer>> lists) {
+        int[][] arrays = new int[lists.size()][];
+        for (int i = 0; i < arrays.length; i++) {
+            arrays[i] = lists.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return arrays;
+    }
+
+    private static long mix(long value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}